@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Starts the service from an extracted jar with a class-data-sharing archive.
+#
+#   scripts/start.sh --train   extract target/*.jar into target/app and record the CDS archive
+#   scripts/start.sh [args]    run it; extra arguments go to the application
+#
+# A jar built with -Pproduction carries AOT bean definitions; they are used when present
+# (AOT=false turns them off). JAVA_OPTS is passed through to the JVM. PAYMENT_NODE_ID must be
+# set to an ID no other running instance uses.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+APP_DIR="${APP_DIR:-$ROOT/target/app}"
+JAR="${JAR:-$(ls "$ROOT"/target/*-SNAPSHOT.jar 2>/dev/null | head -n 1)}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+extract() {
+    if [[ -z "$JAR" || ! -f "$JAR" ]]; then
+        echo "No application jar under $ROOT/target, run mvn package first" >&2
+        exit 1
+    fi
+    rm -rf "$APP_DIR"
+    "$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$APP_DIR"
+}
+
+aot_opts() {
+    if [[ "${AOT:-auto}" == "true" ]] || { [[ "${AOT:-auto}" == "auto" ]] \
+            && unzip -l "$APP_DIR"/*.jar 2>/dev/null | grep '__BeanDefinitions.class' > /dev/null; }; then
+        echo "-Dspring.aot.enabled=true"
+    fi
+}
+
+if [[ "${1:-}" == "--train" ]]; then
+    extract
+    # refresh the context and exit, so the archive covers everything loaded during startup
+    "$JAVA" -XX:ArchiveClassesAtExit="$APP_DIR/app.jsa" $(aot_opts) -Dspring.context.exit=onRefresh \
+        -Dpayment.redis.resilience.spoolEnabled=false -Dpayment.id.nodeId="${PAYMENT_NODE_ID:-0}" -jar "$APP_DIR"/*.jar
+    exit 0
+fi
+
+[[ -d "$APP_DIR" ]] || extract
+CDS_OPTS=""
+if [[ -f "$APP_DIR/app.jsa" ]]; then
+    CDS_OPTS="-XX:SharedArchiveFile=$APP_DIR/app.jsa -Xshare:auto"
+fi
+exec "$JAVA" $CDS_OPTS $(aot_opts) ${JAVA_OPTS:-} -jar "$APP_DIR"/*.jar "$@"
@@ -0,0 +1,95 @@
+#!/usr/bin/env bash
+# Measures cold start of each deployment variant against a running Redis:
+#   jar        java -jar target/*.jar
+#   extracted  the jarmode-tools layout in target/app
+#   cds        extracted + class-data-sharing archive (scripts/start.sh --train)
+#   aot-cds    cds + AOT bean definitions (only if the jar was built with -Pproduction)
+#
+# Per run it records the "Started ... in" time, the time until /actuator/health/readiness is UP,
+# the time until the first POST /api/process succeeds, and the resident set size at that point.
+# Results are appended to target/startup/startup.csv; medians are printed per variant.
+#
+#   scripts/startup-benchmark.sh [runs] [variant...]
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-5}"
+shift || true
+VARIANTS=("$@")
+PORT="${PORT:-8080}"
+MANAGEMENT_PORT="${MANAGEMENT_PORT:-8081}"
+export PAYMENT_NODE_ID="${PAYMENT_NODE_ID:-0}"
+APP_DIR="$ROOT/target/app"
+OUT="$ROOT/target/startup"
+JAR="$(ls "$ROOT"/target/*-SNAPSHOT.jar | head -n 1)"
+BANK="${BANK:-VNPAY}"
+KEY="${KEY:-ghffffffffff}"
+mkdir -p "$OUT"
+
+[[ -f "$APP_DIR/app.jsa" ]] || "$ROOT/scripts/start.sh" --train > "$OUT/train.log" 2>&1
+AOT_BUILD=false
+unzip -l "$JAR" | grep '__BeanDefinitions.class' > /dev/null && AOT_BUILD=true
+if [[ ${#VARIANTS[@]} -eq 0 ]]; then
+    VARIANTS=(jar extracted cds)
+    [[ "$AOT_BUILD" == "true" ]] && VARIANTS+=(aot-cds)
+fi
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+payment() {
+    local token="$1" trace="$2"
+    # mobile, bankCode, accountNo, payDate, debitAmount, respCode, traceTransfer, messageType
+    local data="0912345678${BANK}0001100014211002202409301030251120000${trace}1"
+    local sum
+    sum="$(printf '%s' "$data" | openssl dgst -sha256 -hmac "$KEY" | awk '{print $NF}')"
+    printf '{"tokenKey":"%s","apiID":"restPayment","mobile":"0912345678","bankCode":"%s","accountNo":"0001100014211002","payDate":"20240930103025","additionalData":"{}","debitAmount":11200,"respCode":"00","respDesc":"SUCCESS","traceTransfer":"%s","messageType":"1","checkSum":"%s","orderCode":"%s","userName":"bench","realAmount":"11200","promotionCode":"NONE"}' \
+        "$token" "$BANK" "$trace" "$sum" "$trace"
+}
+
+command_for() {
+    case "$1" in
+        jar) echo "java -jar $JAR" ;;
+        extracted) echo "java -jar $(ls "$APP_DIR"/*.jar)" ;;
+        cds) echo "java -XX:SharedArchiveFile=$APP_DIR/app.jsa -jar $(ls "$APP_DIR"/*.jar)" ;;
+        aot-cds) echo "java -XX:SharedArchiveFile=$APP_DIR/app.jsa -Dspring.aot.enabled=true -jar $(ls "$APP_DIR"/*.jar)" ;;
+        *) echo "Unknown variant $1" >&2; exit 1 ;;
+    esac
+}
+
+[[ -f "$OUT/startup.csv" ]] || echo "variant,run,started_ms,ready_ms,first_payment_ms,rss_kb" > "$OUT/startup.csv"
+for variant in "${VARIANTS[@]}"; do
+    for run in $(seq 1 "$RUNS"); do
+        log="$OUT/$variant-$run.log"
+        start="$(now_ms)"
+        $(command_for "$variant") --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" > "$log" 2>&1 &
+        pid=$!
+        until curl -sf "http://localhost:$MANAGEMENT_PORT/actuator/health/readiness" > /dev/null 2>&1; do
+            kill -0 "$pid" 2> /dev/null || { echo "$variant run $run died, see $log" >&2; exit 1; }
+            sleep 0.02
+        done
+        ready=$(( $(now_ms) - start ))
+        token="bench-$variant-$run-$start"
+        until curl -sf -H 'Content-Type: application/json' -d "$(payment "$token" "FT$start")" \
+                "http://localhost:$PORT/api/process" | grep -q '"code":"00"'; do
+            sleep 0.02
+        done
+        first=$(( $(now_ms) - start ))
+        rss="$(awk '/VmRSS/ {print $2}' /proc/$pid/status)"
+        started="$(sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p' "$log" | awk '{printf "%d", $1 * 1000}')"
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        echo "$variant,$run,$started,$ready,$first,$rss" | tee -a "$OUT/startup.csv"
+    done
+done
+
+echo
+echo "median over the last $RUNS run(s): variant started_ms ready_ms first_payment_ms rss_kb"
+median() { sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'; }
+for variant in "${VARIANTS[@]}"; do
+    rows="$(grep "^$variant," "$OUT/startup.csv" | tail -n "$RUNS")"
+    line="$variant"
+    for column in 3 4 5 6; do
+        line="$line $(cut -d, -f"$column" <<< "$rows" | median)"
+    done
+    echo "$line"
+done
@@ -0,0 +1,41 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the selected benchmarks once per thread count with the GC profiler attached, writing
+ * one JSON result file per thread count. Driven by {@code mvn -Pbenchmark test-compile exec:exec}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", ".*");
+        String threadCounts = System.getProperty("jmh.threads", "1");
+        int forks = Integer.getInteger("jmh.forks", 1);
+        File resultDir = new File(System.getProperty("jmh.resultDir", "target/jmh"));
+        resultDir.mkdirs();
+
+        for (String value : threadCounts.split(",")) {
+            int threads = Integer.parseInt(value.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .forks(forks)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "result-threads-" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.vnpay.demo1_16092024.bean.codec.BinaryPaymentCodec;
+import vn.vnpay.demo1_16092024.bean.codec.JsonPaymentCodec;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentCodec;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of each storage codec. The setup prints the bytes per record of every
+ * codec for the same request, which is the before/after storage report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    public enum Codec { JSON, BINARY, BINARY_LZ4 }
+
+    @Param({"JSON", "BINARY", "BINARY_LZ4"})
+    private Codec codec;
+
+    @Param({"SHORT", "LONG"})
+    private String additionalData;
+
+    private PaymentCodec paymentCodec;
+    private PaymentRequest request;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        request = PaymentFixtures.signedRequest("token-1");
+        if ("LONG".equals(additionalData)) {
+            request.setAdditionalData("{\"channel\":\"MOBILE\",\"items\":["
+                    + "{\"sku\":\"SKU-0001\",\"qty\":1,\"price\":11200},".repeat(12) + "{}]}");
+        }
+        paymentCodec = codec(codec);
+        encoded = paymentCodec.encode(request);
+
+        StringBuilder report = new StringBuilder("Record size (additionalData=").append(additionalData).append("):");
+        for (Codec each : Codec.values()) {
+            report.append(' ').append(each).append('=').append(codec(each).encode(request).length).append('B');
+        }
+        System.out.println(report);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return paymentCodec.encode(request);
+    }
+
+    @Benchmark
+    public PaymentRequest decode() throws IOException {
+        return paymentCodec.decode(encoded);
+    }
+
+    private static PaymentCodec codec(Codec codec) {
+        switch (codec) {
+            case JSON:
+                return new JsonPaymentCodec(new ObjectMapper());
+            case BINARY:
+                return new BinaryPaymentCodec(false, Integer.MAX_VALUE);
+            default:
+                return new BinaryPaymentCodec(true, 64);
+        }
+    }
+}
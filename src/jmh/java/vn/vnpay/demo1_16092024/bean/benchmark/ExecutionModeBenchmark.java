@@ -0,0 +1,94 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.vnpay.demo1_16092024.bean.constant.ExecutionMode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.service.PaymentService;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load comparison between execution modes: a wave of {@code inFlight} concurrent requests, each
+ * computing the request checksum and then blocking for {@code redisLatencyMillis} as the
+ * servlet path does while waiting for Redis. The platform mode stands in for Tomcat's request
+ * pool with {@code platformPoolSize} threads; the virtual mode starts one virtual thread per
+ * request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private ExecutionMode mode;
+
+    @Param({"1000", "5000"})
+    private int inFlight;
+
+    @Param({"200"})
+    private int platformPoolSize;
+
+    @Param({"5"})
+    private long redisLatencyMillis;
+
+    private ExecutorService executor;
+    private PaymentService paymentService;
+    private HmacSha256Signer signer;
+    private PaymentRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        executor = mode == ExecutionMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(platformPoolSize);
+        paymentService = new PaymentService();
+        signer = new HmacSha256Signer(PaymentFixtures.PRIVATE_KEY);
+        request = PaymentFixtures.signedRequest("token-1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long wave() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            executor.execute(() -> {
+                try {
+                    paymentService.calculateRequestCheckSum(request, signer);
+                    Thread.sleep(redisLatencyMillis);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return done.getCount();
+    }
+}
@@ -0,0 +1,49 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis stand-in for benchmarks: same futures-based contract as {@link RedisUtils}, backed by
+ * concurrent maps and completed inline.
+ */
+class InMemoryRedisUtils extends RedisUtils {
+
+    private final Map<String, Map<String, byte[]>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletableFuture<Boolean> putDataAsync(String bankCode, String tokenKey, byte[] data, Duration ttl) {
+        hashes.computeIfAbsent(tokenKey, key -> new ConcurrentHashMap<>()).put(bankCode, data);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> reserveAsync(String key, String value, Duration ttl) {
+        return CompletableFuture.completedFuture(values.putIfAbsent(key, value) == null);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replaceKeepingTtlAsync(String key, String value) {
+        return CompletableFuture.completedFuture(values.replace(key, value) != null);
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String key) {
+        return CompletableFuture.completedFuture(values.get(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> deleteAsync(String key) {
+        return CompletableFuture.completedFuture(values.remove(key) != null ? 1L : 0L);
+    }
+
+    void clear() {
+        hashes.clear();
+        values.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import vn.vnpay.demo1_16092024.bean.config.JournalConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.journal.PaymentJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentJournal#append} of a typical payment, returning as soon as the entry is in the
+ * mapped segment or, with {@code awaitSync}, once a group commit has forced it to disk. The
+ * journal starts empty each iteration so the disk use stays bounded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"false", "true"})
+    public boolean awaitSync;
+
+    private Path directory;
+    private PaymentJournal journal;
+    private PaymentRequest request;
+    private byte[] record;
+    private PaymentResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        request = PaymentFixtures.signedRequest("token-1");
+        record = new ObjectMapper().writeValueAsBytes(request);
+        PaymentErrorCode code = PaymentErrorCode.SUCCESS;
+        response = new PaymentResponse(code.getCode(), code.getMessage(), "370096428605468672", "20241018063104",
+                "653894c73f878165f1d5cb9dab04330cdce7d1413abe6ce94793449190510d0e");
+    }
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException, GeneralSecurityException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        JournalConfig config = new JournalConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setCommitInterval(Duration.ofMillis(10));
+        config.setAwaitSync(awaitSync);
+        config.setKey("journal-benchmark-key");
+        journal = new PaymentJournal();
+        ReflectionTestUtils.setField(journal, "config", config);
+        ReflectionTestUtils.setField(journal, "meterRegistry", new SimpleMeterRegistry());
+        journal.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws InterruptedException, IOException {
+        journal.stop();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Void append() {
+        return journal.append(request, record, response).join();
+    }
+}
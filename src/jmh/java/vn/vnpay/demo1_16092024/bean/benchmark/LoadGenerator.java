@@ -0,0 +1,301 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import vn.vnpay.demo1_16092024.bean.ApplicationRun;
+import vn.vnpay.demo1_16092024.bean.config.BankConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.service.PaymentService;
+import vn.vnpay.demo1_16092024.bean.utils.MiniRedis;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for {@code POST /api/process}. Requests are sent on a fixed schedule
+ * at {@code load.rate} per second whether or not earlier ones have been answered, so a stalled
+ * server shows up as latency instead of as a lower send rate.
+ *
+ * <p>Latency is recorded twice: from the moment a request was scheduled to be sent (response
+ * time, corrected for coordinated omission) and from the moment it was actually sent (service
+ * time). Only the corrected numbers are comparable between runs; the gap between the two shows
+ * how far the generator itself fell behind. Once {@code load.maxInFlight} requests are
+ * outstanding, later sends wait for a slot rather than being skipped; their response time still
+ * counts from the scheduled moment, so the wait is charged to the server. Requests time out after
+ * the longest trackable latency and count as failed.
+ *
+ * <p>Payloads come from {@code load.input}, one JSON request per line, or from
+ * {@link PaymentFixtures}. With {@code load.resign} every send gets a unique tokenKey and
+ * traceTransfer and is re-signed with its bank's key from {@link BankConfig}, so nothing is
+ * answered as a duplicate. Without {@code load.target} an application instance is started in
+ * this JVM against an in-process {@link MiniRedis}, or against {@code load.redisPort}.
+ *
+ * <p>Driven by {@code mvn -Pbenchmark test-compile exec:exec@load -Dload.rate=... }; writes a
+ * {@code .hgrm} percentile distribution per run and appends a summary line to
+ * {@code summary.csv} in {@code load.resultDir}.
+ */
+public final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final byte[] CODE_FIELD = "\"code\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder uncorrected = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> codes = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int maxInFlight;
+    private final boolean resign;
+    private final String input;
+    private final Path resultDir;
+    private final String label;
+
+    private LoadGenerator() {
+        rate = Double.parseDouble(property("load.rate", "500"));
+        duration = Duration.parse("PT" + property("load.duration", "30s"));
+        warmup = Duration.parse("PT" + property("load.warmup", "10s"));
+        maxInFlight = Integer.parseInt(property("load.maxInFlight", "5000"));
+        resign = Boolean.parseBoolean(property("load.resign", "true"));
+        input = property("load.input", "");
+        resultDir = Path.of(property("load.resultDir", "target/load"));
+        label = property("load.label", "");
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        String target = property("load.target", "");
+        if (!target.isEmpty()) {
+            generator.run(URI.create(target), bankKeys(null));
+            return;
+        }
+        String redisPort = property("load.redisPort", "");
+        try (MiniRedis miniRedis = redisPort.isEmpty() ? new MiniRedis() : null) {
+            int port = miniRedis != null ? miniRedis.getPort() : Integer.parseInt(redisPort);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(ApplicationRun.class)
+                    .run("--server.port=0", "--spring.data.redis.host=127.0.0.1", "--spring.data.redis.port=" + port,
+                            "--payment.redis.resilience.spoolEnabled=false", "--payment.id.nodeId=0",
+                            "--logging.level.root=WARN");
+            try {
+                int serverPort = ((WebServerApplicationContext) context).getWebServer().getPort();
+                generator.run(URI.create("http://127.0.0.1:" + serverPort), bankKeys(context.getBean("bankConfig", BankConfig.class)));
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private void run(URI target, Map<String, String> keys) throws Exception {
+        long periodNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / rate);
+        int warmupCount = (int) (warmup.toNanos() / periodNanos);
+        int total = warmupCount + (int) (duration.toNanos() / periodNanos);
+        List<byte[]> bodies = bodies(total, keys);
+        URI endpoint = target.resolve("/api/process");
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        System.out.printf("Sending %d request(s) to %s at %.0f/s, the first %d as warm-up%n",
+                total, endpoint, rate, warmupCount);
+
+        int held = 0;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = start + warmupCount * periodNanos;
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * periodNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = i >= warmupCount;
+            if (inFlight.get() >= maxInFlight) {
+                // the server is not keeping up; wait for a slot, the delay still counts from intended
+                held += measured ? 1 : 0;
+                while (inFlight.get() >= maxInFlight) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+            }
+            inFlight.incrementAndGet();
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                    .timeout(Duration.ofMillis(TimeUnit.MICROSECONDS.toMillis(HIGHEST_TRACKABLE_MICROS)))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(bodies.get(i)))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        inFlight.decrementAndGet();
+                        if (!measured) {
+                            return;
+                        }
+                        corrected.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - intended) / 1_000));
+                        uncorrected.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - sent) / 1_000));
+                        if (error != null) {
+                            failures.increment();
+                        } else {
+                            codes.computeIfAbsent(responseCode(response), code -> new LongAdder()).increment();
+                        }
+                    });
+        }
+        long sendEnd = System.nanoTime();
+        long drainDeadline = sendEnd + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        report(endpoint, total - warmupCount, held, (sendEnd - measureStart) / 1e9);
+    }
+
+    private List<byte[]> bodies(int total, Map<String, String> keys) throws IOException {
+        List<PaymentRequest> templates = new ArrayList<>();
+        if (input.isEmpty()) {
+            templates.add(PaymentFixtures.signedRequest("load"));
+        } else {
+            for (String line : Files.readAllLines(Path.of(input))) {
+                if (!line.isBlank()) {
+                    templates.add(objectMapper.readValue(line, PaymentRequest.class));
+                }
+            }
+        }
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        PaymentService signer = new PaymentService();
+        List<byte[]> bodies = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            PaymentRequest request = templates.get(i % templates.size());
+            String key = keys.get(request.getBankCode());
+            if (resign && key != null) {
+                request.setTokenKey("load-" + run + '-' + i);
+                request.setTraceTransfer("LT" + run + i);
+                try {
+                    request.setCheckSum(signer.calculateRequestCheckSum(request, key));
+                } catch (Exception e) {
+                    throw new IllegalStateException("Cannot sign request for bank " + request.getBankCode(), e);
+                }
+            }
+            bodies.add(objectMapper.writeValueAsBytes(request));
+        }
+        return bodies;
+    }
+
+    private void report(URI endpoint, int measured, int held, double seconds) throws IOException {
+        Histogram response = corrected.getIntervalHistogram();
+        Histogram service = uncorrected.getIntervalHistogram();
+        Map<String, Long> counts = new TreeMap<>();
+        codes.forEach((code, count) -> counts.put(code, count.sum()));
+        PrintStream out = System.out;
+        out.printf("%n%s: %d measured request(s), %d answered, %d failed, %d held for a slot, %d unfinished%n", endpoint,
+                measured, response.getTotalCount() - failures.sum(), failures.sum(), held, inFlight.get());
+        out.printf("offered %.1f/s, achieved %.1f/s, response codes %s%n", rate,
+                response.getTotalCount() / seconds, counts);
+        out.printf("%-26s%10s%10s%10s%10s%10s%10s%n", "latency (ms)", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        printRow(out, "response time (corrected)", response);
+        printRow(out, "service time", service);
+
+        Files.createDirectories(resultDir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        try (PrintStream file = new PrintStream(Files.newOutputStream(resultDir.resolve(stamp + "-corrected.hgrm")))) {
+            response.outputPercentileDistribution(file, 1000.0);
+        }
+        try (PrintStream file = new PrintStream(Files.newOutputStream(resultDir.resolve(stamp + "-service.hgrm")))) {
+            service.outputPercentileDistribution(file, 1000.0);
+        }
+        Path summary = resultDir.resolve("summary.csv");
+        StringBuilder line = new StringBuilder();
+        if (!Files.exists(summary)) {
+            line.append("time,label,rate,seconds,measured,failed,held,achieved,p50_ms,p90_ms,p99_ms,p999_ms,p9999_ms,max_ms,service_p99_ms\n");
+        }
+        line.append(stamp).append(',').append(label).append(',').append(rate).append(',')
+                .append(String.format("%.1f,%d,%d,%d,%.1f", seconds, measured, failures.sum(), held,
+                        response.getTotalCount() / seconds));
+        for (double percentile : PERCENTILES) {
+            line.append(',').append(millis(response.getValueAtPercentile(percentile)));
+        }
+        line.append(',').append(millis(response.getMaxValue()))
+                .append(',').append(millis(service.getValueAtPercentile(99))).append('\n');
+        Files.writeString(summary, line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        out.printf("Distributions and summary written to %s%n", resultDir.toAbsolutePath());
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-26s", name);
+        for (double percentile : PERCENTILES) {
+            out.printf("%10s", millis(histogram.getValueAtPercentile(percentile)));
+        }
+        out.printf("%10s%n", millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private static String responseCode(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        outer:
+        for (int i = 0; i + CODE_FIELD.length + 2 <= body.length; i++) {
+            for (int j = 0; j < CODE_FIELD.length; j++) {
+                if (body[i + j] != CODE_FIELD[j]) {
+                    continue outer;
+                }
+            }
+            return new String(body, i + CODE_FIELD.length, 2, StandardCharsets.US_ASCII);
+        }
+        return "http-" + response.statusCode();
+    }
+
+    /**
+     * Bank keys from the running application, or from the bundled {@code application.yml} when
+     * the target is remote.
+     */
+    private static Map<String, String> bankKeys(BankConfig config) throws IOException {
+        if (config == null) {
+            Binder binder = new Binder(ConfigurationPropertySources.from(
+                    new YamlPropertySourceLoader().load("application.yml", new ClassPathResource("application.yml"))));
+            config = binder.bindOrCreate("banks", Bindable.of(BankConfig.class));
+        }
+        Map<String, String> keys = new HashMap<>();
+        if (config.getBankList() != null) {
+            for (BankConfig.Bank bank : config.getBankList()) {
+                keys.put(bank.getBankCode(), bank.getPrivateKey());
+            }
+        }
+        return keys;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,135 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.LogMaskingUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-request logging on the calling thread. {@code PER_STEP} replays the INFO
+ * lines the request path used to write (request dumps and checksums included), {@code SUMMARY}
+ * the single line it writes now; each goes to a file either directly ({@code SYNC}) or through
+ * an {@link AsyncAppender} configured like {@code logback-spring.xml}. With {@code ASYNC} events
+ * past the discarding threshold are dropped, so compare it at a sustainable rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+    public enum AppenderMode { SYNC, ASYNC }
+
+    public enum LogStyle { PER_STEP, SUMMARY }
+
+    @Param({"SYNC", "ASYNC"})
+    private AppenderMode appender;
+
+    @Param({"PER_STEP", "SUMMARY"})
+    private LogStyle style;
+
+    @Param({"8192"})
+    private int queueSize;
+
+    private Path logFile;
+    private Logger logger;
+    private Appender<ILoggingEvent> root;
+    private PaymentRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        logFile = Files.createTempFile("logging-benchmark", ".log");
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+        root = file;
+
+        if (appender == AppenderMode.ASYNC) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(queueSize);
+            async.setDiscardingThreshold(queueSize / 5);
+            async.setNeverBlock(true);
+            async.setIncludeCallerData(false);
+            async.addAppender(file);
+            async.start();
+            root = async;
+        }
+
+        logger = context.getLogger("benchmark.payment");
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(root);
+
+        request = PaymentFixtures.signedRequest("token-1");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        logger.detachAppender(root);
+        root.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void logRequest() {
+        if (style == LogStyle.SUMMARY) {
+            logger.info("payment trace={} bank={} token={} account={} code={} responseId={} elapsedUs={}",
+                    request.getTraceTransfer(), request.getBankCode(), request.getTokenKey(),
+                    LogMaskingUtils.maskAccountNo(request.getAccountNo()), "00", "12345678", 250L);
+            return;
+        }
+        logger.info("Received payment request");
+        logger.info("Start processing payment for bankCode: {}", request.getBankCode());
+        logger.info("Validating request: {}", request);
+        logger.info("Validation passed for tokenKey: {}", request.getTokenKey());
+        logger.info("Bank found for code: {}. Proceeding with checksum validation.", request.getBankCode());
+        logger.info("Calculating checksum for request: {}", request);
+        logger.info("Start calculating request checksum for PaymentRequest with mobile: {}", request.getMobile());
+        logger.info("Calculated request checksum: {}", request.getCheckSum());
+        logger.info("Writing data to Redis for bankCode: {}, tokenKey: {}", request.getBankCode(), request.getTokenKey());
+        logger.info("Attempting to put data into Redis for tokenKey: {}, bankCode: {}", request.getTokenKey(), request.getBankCode());
+        logger.info("Data successfully stored in Redis for tokenKey: {}, bankCode: {}", request.getTokenKey(), request.getBankCode());
+        logger.info("Request successfully processed for bankCode: {}. Returning success response.", request.getBankCode());
+        logger.info("Start calculating response checksum for code: {}, message: {}", "00", "Success");
+        logger.info("Calculated response checksum: {}", request.getCheckSum());
+        logger.info("Returning response for tokenKey: {}", request.getTokenKey());
+    }
+}
@@ -0,0 +1,39 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.service.PaymentService;
+
+final class PaymentFixtures {
+
+    static final String BANK_CODE = "VNPAY";
+    static final String PRIVATE_KEY = "ghffffffffff";
+
+    private PaymentFixtures() {
+    }
+
+    static PaymentRequest signedRequest(String tokenKey) {
+        PaymentRequest request = new PaymentRequest();
+        request.setTokenKey(tokenKey);
+        request.setApiID("restPayment");
+        request.setMobile("0912345678");
+        request.setBankCode(BANK_CODE);
+        request.setAccountNo("0001100014211002");
+        request.setPayDate("20240930103025");
+        request.setAdditionalData("{\"channel\":\"MOBILE\",\"terminal\":\"T0001\"}");
+        request.setDebitAmount(11200);
+        request.setRespCode("00");
+        request.setRespDesc("SUCCESS");
+        request.setTraceTransfer("FT19070878181");
+        request.setMessageType("1");
+        request.setOrderCode("FT19070878181");
+        request.setUserName("cntest001");
+        request.setRealAmount("11200");
+        request.setPromotionCode("PROMO01");
+        try {
+            request.setCheckSum(new PaymentService().calculateRequestCheckSum(request, PRIVATE_KEY));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.service.PaymentService;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentUtils;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentRequestValidator;
+import vn.vnpay.demo1_16092024.bean.utils.ValidationResult;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per stage of {@code /api/process}, measured in isolation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentStageBenchmark {
+
+    private static final String CHECKSUM_INPUT = "0912345678" + "VNPAY" + "0001100014211002"
+            + "20240930103025" + "11200" + "00" + "FT19070878181" + "1";
+
+    private PaymentRequest request;
+    private PaymentRequestValidator validator;
+    private PaymentService paymentService;
+    private HmacSha256Signer signer;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        request = PaymentFixtures.signedRequest("token-1");
+        validator = new PaymentRequestValidator();
+        paymentService = new PaymentService();
+        signer = new HmacSha256Signer(PaymentFixtures.PRIVATE_KEY);
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public String encodeHmacSha256() throws NoSuchAlgorithmException, InvalidKeyException {
+        return PaymentUtils.encodeHmacSha256(CHECKSUM_INPUT, PaymentFixtures.PRIVATE_KEY);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validator.validate(request);
+    }
+
+    @Benchmark
+    public String calculateRequestCheckSum() throws NoSuchAlgorithmException, InvalidKeyException {
+        return paymentService.calculateRequestCheckSum(request, signer);
+    }
+
+    @Benchmark
+    public String serializeRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(request);
+    }
+}
@@ -0,0 +1,100 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import vn.vnpay.demo1_16092024.bean.ApplicationRun;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.service.IPaymentService;
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link IPaymentService#processPayment} on a real application context, with
+ * {@link RedisUtils} replaced by {@link InMemoryRedisUtils} so Redis round trips are excluded.
+ * {@code journal} turns the payment journal on or off, in a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ProcessPaymentBenchmark {
+
+    @Param({"false", "true"})
+    public boolean journal;
+
+    private Path journalDirectory;
+    private ConfigurableApplicationContext context;
+    private InMemoryRedisUtils redis;
+    private IPaymentService paymentService;
+
+    @Setup(Level.Trial)
+    public void startContext() throws IOException {
+        redis = new InMemoryRedisUtils();
+        journalDirectory = Files.createTempDirectory("journal-benchmark");
+        context = new SpringApplicationBuilder(ApplicationRun.class)
+                .web(WebApplicationType.NONE)
+                .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean("inMemoryRedisUtils",
+                        RedisUtils.class, () -> redis, definition -> definition.setPrimary(true)))
+                .run("--payment.journal.enabled=" + journal, "--payment.journal.directory=" + journalDirectory,
+                        "--payment.journal.key=journal-benchmark-key", "--payment.id.nodeId=0");
+        paymentService = context.getBean(IPaymentService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearStore() {
+        redis.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+        FileSystemUtils.deleteRecursively(journalDirectory.toFile());
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRequest {
+
+        private PaymentRequest request;
+        private long sequence;
+        private String tokenPrefix;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            request = PaymentFixtures.signedRequest("token");
+            tokenPrefix = "token-" + Thread.currentThread().getId() + '-';
+        }
+
+        PaymentRequest next() {
+            request.setTokenKey(tokenPrefix + sequence++);
+            return request;
+        }
+    }
+
+    @Benchmark
+    public PaymentResponse processPayment(ThreadRequest threadRequest) {
+        return paymentService.processPayment(threadRequest.next());
+    }
+}
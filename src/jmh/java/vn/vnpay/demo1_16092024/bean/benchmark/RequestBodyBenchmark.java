@@ -0,0 +1,60 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import vn.vnpay.demo1_16092024.bean.codec.ParsedPaymentRequest;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentRequestParser;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.service.PaymentService;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body to checksum to stored JSON record: data binding, signing from the strings and
+ * re-serializing, against one streaming pass that signs from the body and stores it as is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBodyBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentRequestParser parser = new PaymentRequestParser(objectMapper.getFactory());
+    private final PaymentService paymentService = new PaymentService();
+    private HmacSha256Signer signer;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws Exception {
+        signer = new HmacSha256Signer(PaymentFixtures.PRIVATE_KEY);
+        body = objectMapper.writeValueAsBytes(PaymentFixtures.signedRequest("token-1"));
+    }
+
+    @Benchmark
+    public void dataBinding(Blackhole blackhole) throws Exception {
+        PaymentRequest request = objectMapper.readValue(body, PaymentRequest.class);
+        blackhole.consume(paymentService.calculateRequestCheckSum(request, signer));
+        blackhole.consume(objectMapper.writeValueAsBytes(request));
+    }
+
+    @Benchmark
+    public void parsedBody(Blackhole blackhole) throws Exception {
+        ParsedPaymentRequest request = parser.parse(body);
+        blackhole.consume(paymentService.calculateRequestCheckSum(request, signer));
+        blackhole.consume(request.getBody());
+    }
+}
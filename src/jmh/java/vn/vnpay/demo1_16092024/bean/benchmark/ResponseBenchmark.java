@@ -0,0 +1,89 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentResponseTemplates;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response signing from a fresh session against the bank's encoded code/message prefix, and response
+ * serialization through Jackson against {@link PaymentResponseTemplates}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBenchmark {
+
+    private static final String RESPONSE_ID = "370096428605468672";
+    private static final String RESPONSE_TIME = "20241018063104";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HmacSha256Signer signer;
+    private HmacSha256Signer.Prefix prefix;
+    private PaymentResponseTemplates templates;
+    private PaymentResponse error;
+    private PaymentResponse success;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        PaymentErrorCode code = PaymentErrorCode.SUCCESS;
+        signer = new HmacSha256Signer(PaymentFixtures.PRIVATE_KEY);
+        prefix = signer.prefix(code.getCode(), code.getMessage());
+        templates = new PaymentResponseTemplates(objectMapper);
+        PaymentErrorCode invalid = PaymentErrorCode.INVALID_CHECKSUM;
+        error = new PaymentResponse(invalid.getCode(), invalid.getMessage(), RESPONSE_ID, RESPONSE_TIME, null);
+        success = new PaymentResponse(code.getCode(), code.getMessage(), RESPONSE_ID, RESPONSE_TIME,
+                signer.sign(code.getCode() + code.getMessage() + RESPONSE_ID + RESPONSE_TIME));
+    }
+
+    @Benchmark
+    public String signFresh() throws GeneralSecurityException {
+        PaymentErrorCode code = PaymentErrorCode.SUCCESS;
+        return signer.begin().update(code.getCode()).update(code.getMessage())
+                .update(RESPONSE_ID).update(RESPONSE_TIME).doFinalHex();
+    }
+
+    @Benchmark
+    public String signFromPrefix() throws GeneralSecurityException {
+        return prefix.begin().update(RESPONSE_ID).update(RESPONSE_TIME).doFinalHex();
+    }
+
+    @Benchmark
+    public byte[] errorJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(error);
+    }
+
+    @Benchmark
+    public byte[] errorTemplate() throws JsonProcessingException {
+        return templates.write(error);
+    }
+
+    @Benchmark
+    public byte[] successJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(success);
+    }
+
+    @Benchmark
+    public byte[] successTemplate() throws JsonProcessingException {
+        return templates.write(success);
+    }
+}
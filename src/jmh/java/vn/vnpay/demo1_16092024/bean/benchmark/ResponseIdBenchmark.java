@@ -0,0 +1,71 @@
+package vn.vnpay.demo1_16092024.bean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.IdConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentConstant;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentUtils;
+import vn.vnpay.demo1_16092024.bean.utils.ResponseIdGenerator;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response ID and timestamp generation against the per-call {@code Random} and
+ * {@code DateTimeFormatter} they replaced. Run with several threads to see the ID CAS contend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseIdBenchmark {
+
+    private ResponseIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        IdConfig config = new IdConfig();
+        config.setNodeId(1);
+        generator = new ResponseIdGenerator();
+        ReflectionTestUtils.setField(generator, "config", config);
+        generator.init();
+    }
+
+    @Benchmark
+    public String randomId() {
+        Random random = new Random();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            sb.append(random.nextInt(10));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String snowflakeId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String formattedTimestamp() {
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern(PaymentConstant.TIMESTAMP_FORMATTER));
+    }
+
+    @Benchmark
+    public String cachedTimestamp() {
+        return PaymentUtils.getCurrentTimestamp();
+    }
+}
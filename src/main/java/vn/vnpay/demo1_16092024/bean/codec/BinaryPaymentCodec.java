@@ -0,0 +1,316 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Schema-based binary format. A record starts with {@link #MAGIC} (never the first byte of
+ * UTF-8 JSON) and a version byte, followed by the request fields in declaration order.
+ *
+ * <p>Each string is a varint header {@code length << 3 | kind} and its payload: nothing for
+ * {@code null}, packed BCD for digit-only strings, raw bytes for lowercase hex (checksums),
+ * UTF-8 otherwise, or LZ4-compressed UTF-8 (additionalData only) preceded by its compressed
+ * length. {@code debitAmount} is a zig-zag varint offset by one so that zero means {@code null}.
+ *
+ * <p>Decoding checks every length against the record before allocating for it; an LZ4 field may
+ * not expand past {@link #MAX_DECOMPRESSED_LENGTH} or past what its compressed bytes can hold.
+ */
+public class BinaryPaymentCodec implements PaymentCodec {
+
+    static final byte MAGIC = (byte) 0xFE;
+    static final byte VERSION = 1;
+
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+    private static final int KIND_NULL = 0;
+    private static final int KIND_UTF8 = 1;
+    private static final int KIND_DIGITS = 2;
+    private static final int KIND_HEX = 3;
+    private static final int KIND_LZ4 = 4;
+
+    static final int MAX_DECOMPRESSED_LENGTH = 8 << 20;
+
+    // each LZ4 length byte adds at most 255 bytes of output
+    private static final int LZ4_MAX_RATIO = 255;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final boolean compressAdditionalData;
+    private final int minCompressLength;
+
+    public BinaryPaymentCodec(boolean compressAdditionalData, int minCompressLength) {
+        this.compressAdditionalData = compressAdditionalData;
+        this.minCompressLength = minCompressLength;
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(PaymentRequest request) {
+        Output out = new Output(256);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeString(out, request.getTokenKey(), false);
+        writeString(out, request.getApiID(), false);
+        writeString(out, request.getMobile(), false);
+        writeString(out, request.getBankCode(), false);
+        writeString(out, request.getAccountNo(), false);
+        writeString(out, request.getPayDate(), false);
+        writeString(out, request.getAdditionalData(), compressAdditionalData);
+        writeInteger(out, request.getDebitAmount());
+        writeString(out, request.getRespCode(), false);
+        writeString(out, request.getRespDesc(), false);
+        writeString(out, request.getTraceTransfer(), false);
+        writeString(out, request.getMessageType(), false);
+        writeString(out, request.getCheckSum(), false);
+        writeString(out, request.getOrderCode(), false);
+        writeString(out, request.getUserName(), false);
+        writeString(out, request.getRealAmount(), false);
+        writeString(out, request.getPromotionCode(), false);
+        return out.toByteArray();
+    }
+
+    @Override
+    public PaymentRequest decode(byte[] data) throws IOException {
+        if (!isBinary(data) || data.length < 2) {
+            throw new IOException("Not a binary payment record");
+        }
+        if (data[1] != VERSION) {
+            throw new IOException("Unsupported binary payment record version " + data[1]);
+        }
+        Input in = new Input(data, 2);
+        PaymentRequest request = new PaymentRequest();
+        try {
+            request.setTokenKey(readString(in));
+            request.setApiID(readString(in));
+            request.setMobile(readString(in));
+            request.setBankCode(readString(in));
+            request.setAccountNo(readString(in));
+            request.setPayDate(readString(in));
+            request.setAdditionalData(readString(in));
+            request.setDebitAmount(readInteger(in));
+            request.setRespCode(readString(in));
+            request.setRespDesc(readString(in));
+            request.setTraceTransfer(readString(in));
+            request.setMessageType(readString(in));
+            request.setCheckSum(readString(in));
+            request.setOrderCode(readString(in));
+            request.setUserName(readString(in));
+            request.setRealAmount(readString(in));
+            request.setPromotionCode(readString(in));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | LZ4Exception e) {
+            throw new IOException("Corrupt binary payment record", e);
+        }
+        return request;
+    }
+
+    private void writeString(Output out, String value, boolean compress) {
+        if (value == null) {
+            out.writeVarint(KIND_NULL);
+            return;
+        }
+        int length = value.length();
+        if (length > 0 && isDigits(value)) {
+            out.writeVarint((long) length << KIND_BITS | KIND_DIGITS);
+            for (int i = 0; i < length; i += 2) {
+                int high = value.charAt(i) - '0';
+                int low = i + 1 < length ? value.charAt(i + 1) - '0' : 0;
+                out.write((byte) (high << 4 | low));
+            }
+            return;
+        }
+        if (length > 0 && (length & 1) == 0 && isLowerHex(value)) {
+            out.writeVarint((long) length << KIND_BITS | KIND_HEX);
+            for (int i = 0; i < length; i += 2) {
+                out.write((byte) (Character.digit(value.charAt(i), 16) << 4 | Character.digit(value.charAt(i + 1), 16)));
+            }
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (compress && utf8.length >= minCompressLength && utf8.length <= MAX_DECOMPRESSED_LENGTH) {
+            byte[] compressed = COMPRESSOR.compress(utf8);
+            if (compressed.length < utf8.length) {
+                out.writeVarint((long) utf8.length << KIND_BITS | KIND_LZ4);
+                out.writeVarint(compressed.length);
+                out.write(compressed, 0, compressed.length);
+                return;
+            }
+        }
+        out.writeVarint((long) utf8.length << KIND_BITS | KIND_UTF8);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private static String readString(Input in) {
+        long header = in.readVarint();
+        int kind = (int) (header & KIND_MASK);
+        long length64 = header >>> KIND_BITS;
+        if (kind != KIND_LZ4 && length64 > 2L * in.data.length || length64 > Integer.MAX_VALUE) {
+            throw new IndexOutOfBoundsException("Field length " + length64 + " exceeds the record");
+        }
+        int length = (int) length64;
+        switch (kind) {
+            case KIND_NULL:
+                return null;
+            case KIND_UTF8: {
+                String value = new String(in.data, in.position, length, StandardCharsets.UTF_8);
+                in.skip(length);
+                return value;
+            }
+            case KIND_DIGITS: {
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    int b = in.data[in.position + (i >> 1)];
+                    chars[i] = (char) ('0' + ((i & 1) == 0 ? (b >> 4) & 0xF : b & 0xF));
+                }
+                in.skip((length + 1) >> 1);
+                return new String(chars);
+            }
+            case KIND_HEX: {
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i += 2) {
+                    int b = in.data[in.position + (i >> 1)] & 0xFF;
+                    chars[i] = HEX[b >>> 4];
+                    chars[i + 1] = HEX[b & 0xF];
+                }
+                in.skip(length >> 1);
+                return new String(chars);
+            }
+            case KIND_LZ4: {
+                long compressedLength = in.readVarint();
+                if (compressedLength > in.data.length - in.position || length > MAX_DECOMPRESSED_LENGTH
+                        || length > compressedLength * LZ4_MAX_RATIO) {
+                    throw new IllegalArgumentException("Compressed field of " + compressedLength
+                            + " byte(s) cannot expand to " + length);
+                }
+                byte[] utf8 = new byte[length];
+                if (DECOMPRESSOR.decompress(in.data, in.position, utf8, 0, length) != compressedLength) {
+                    throw new IllegalArgumentException("Compressed field length does not match its content");
+                }
+                in.skip((int) compressedLength);
+                return new String(utf8, StandardCharsets.UTF_8);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown string encoding " + kind);
+        }
+    }
+
+    private static void writeInteger(Output out, Integer value) {
+        if (value == null) {
+            out.writeVarint(0);
+            return;
+        }
+        long zigzag = (value << 1 ^ value >> 31) & 0xFFFFFFFFL;
+        out.writeVarint(zigzag + 1);
+    }
+
+    private static Integer readInteger(Input in) {
+        long encoded = in.readVarint();
+        if (encoded == 0) {
+            return null;
+        }
+        int zigzag = (int) (encoded - 1);
+        return zigzag >>> 1 ^ -(zigzag & 1);
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLowerHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void write(byte b) {
+            ensureCapacity(1);
+            buffer[size++] = b;
+        }
+
+        private void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        private Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private void skip(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IndexOutOfBoundsException("Record truncated");
+            }
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+
+/**
+ * The original storage format: the request as UTF-8 JSON. Older records were written as a JSON
+ * string holding the JSON document, so a value starting with a quote is unwrapped first.
+ */
+public class JsonPaymentCodec implements PaymentCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonPaymentCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] encode(PaymentRequest request) throws IOException {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Override
+    public PaymentRequest decode(byte[] data) throws IOException {
+        if (isDoubleEncoded(data)) {
+            return objectMapper.readValue(objectMapper.readValue(data, String.class), PaymentRequest.class);
+        }
+        return objectMapper.readValue(data, PaymentRequest.class);
+    }
+
+    private static boolean isDoubleEncoded(byte[] data) {
+        for (byte b : data) {
+            if (b > ' ') {
+                return b == '"';
+            }
+        }
+        return false;
+    }
+}
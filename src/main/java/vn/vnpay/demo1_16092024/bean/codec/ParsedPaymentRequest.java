@@ -0,0 +1,66 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.util.Arrays;
+
+/**
+ * A {@link PaymentRequest} read by {@link PaymentRequestParser}, still holding the body it was
+ * parsed from. String values without escapes are located in that body, so they can be signed
+ * from the bytes as received. Its fields must not change after parsing.
+ */
+public class ParsedPaymentRequest extends PaymentRequest {
+
+    private static final int FIELD_COUNT = FieldName.values().length;
+
+    private final byte[] body;
+    private final int[] spans = new int[FIELD_COUNT * 2];
+    private boolean canonical = true;
+
+    ParsedPaymentRequest(byte[] body) {
+        this.body = body;
+        Arrays.fill(spans, -1);
+    }
+
+    /**
+     * The request body exactly as received.
+     */
+    @JsonIgnore
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Whether the body holds nothing but payment request fields, so storing it as JSON keeps the
+     * same record as re-encoding the request.
+     */
+    @JsonIgnore
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /**
+     * Appends {@code value}, the current value of {@code field}, to {@code session}: straight
+     * from the body when it was located there, from the string otherwise.
+     */
+    public HmacSha256Signer.Session update(HmacSha256Signer.Session session, FieldName field, String value) {
+        int offset = spans[field.ordinal() * 2];
+        return offset >= 0 ? session.update(body, offset, spans[field.ordinal() * 2 + 1]) : session.update(value);
+    }
+
+    void locate(FieldName field, int offset, int length) {
+        spans[field.ordinal() * 2] = offset;
+        spans[field.ordinal() * 2 + 1] = length;
+    }
+
+    void forget(FieldName field) {
+        spans[field.ordinal() * 2] = -1;
+    }
+
+    void markNonCanonical() {
+        canonical = false;
+    }
+}
@@ -0,0 +1,15 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+
+/**
+ * Converts a {@link PaymentRequest} to and from the bytes stored in Redis.
+ */
+public interface PaymentCodec {
+
+    byte[] encode(PaymentRequest request) throws IOException;
+
+    PaymentRequest decode(byte[] data) throws IOException;
+}
@@ -0,0 +1,64 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.StorageConfig;
+import vn.vnpay.demo1_16092024.bean.constant.StorageCodec;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Writes records with the codec selected by {@code payment.storage.codec} and reads either
+ * format, telling them apart by the binary header.
+ */
+@Service
+public class PaymentCodecs {
+
+    @Autowired
+    private StorageConfig config;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JsonPaymentCodec jsonCodec;
+    private BinaryPaymentCodec binaryCodec;
+    private PaymentCodec writeCodec;
+    private DistributionSummary recordBytes;
+
+    @PostConstruct
+    public void init() {
+        jsonCodec = new JsonPaymentCodec(objectMapper);
+        binaryCodec = new BinaryPaymentCodec(config.isCompressAdditionalData(), config.getMinCompressLength());
+        writeCodec = config.getCodec() == StorageCodec.JSON ? jsonCodec : binaryCodec;
+        recordBytes = DistributionSummary.builder("payment.storage.record.size")
+                .description("Encoded size of stored payment records")
+                .baseUnit("bytes")
+                .tag("codec", config.getCodec().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    /**
+     * With the JSON codec a request parsed from a body of nothing but its own fields is stored
+     * as that body, without serializing it again.
+     */
+    public byte[] encode(PaymentRequest request) throws IOException {
+        byte[] data = writeCodec == jsonCodec && request instanceof ParsedPaymentRequest parsed && parsed.isCanonical()
+                ? parsed.getBody()
+                : writeCodec.encode(request);
+        recordBytes.record(data.length);
+        return data;
+    }
+
+    public PaymentRequest decode(byte[] data) throws IOException {
+        return BinaryPaymentCodec.isBinary(data) ? binaryCodec.decode(data) : jsonCodec.decode(data);
+    }
+}
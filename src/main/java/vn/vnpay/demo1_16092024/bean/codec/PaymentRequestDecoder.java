@@ -0,0 +1,57 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * WebFlux counterpart of {@link PaymentRequestMessageConverter}: joins the body into one buffer
+ * and reads it with {@link PaymentRequestParser}. NDJSON streams are left to Jackson.
+ */
+public class PaymentRequestDecoder extends AbstractDataBufferDecoder<PaymentRequest> {
+
+    private final PaymentRequestParser parser;
+
+    public PaymentRequestDecoder(PaymentRequestParser parser) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.parser = parser;
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return elementType.resolve() == PaymentRequest.class && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<PaymentRequest> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                                       Map<String, Object> hints) {
+        return Flux.from(decodeToMono(input, elementType, mimeType, hints));
+    }
+
+    @Override
+    public PaymentRequest decode(DataBuffer buffer, ResolvableType targetType, MimeType mimeType,
+                                 Map<String, Object> hints) {
+        try {
+            byte[] body = new byte[buffer.readableByteCount()];
+            buffer.read(body);
+            return parser.parse(body);
+        } catch (JsonProcessingException e) {
+            throw new DecodingException("JSON decoding error: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new DecodingException("I/O error while parsing payment request", e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a single {@link PaymentRequest} body with {@link PaymentRequestParser} instead of data
+ * binding. Registered ahead of the Jackson converter; lists of requests and every response still
+ * go through Jackson.
+ */
+@Component
+@Profile("!reactive")
+public class PaymentRequestMessageConverter extends AbstractHttpMessageConverter<PaymentRequest> {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private PaymentRequestParser parser;
+
+    public PaymentRequestMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @PostConstruct
+    public void init() {
+        parser = new PaymentRequestParser(objectMapper.getFactory());
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == PaymentRequest.class;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected PaymentRequest readInternal(Class<? extends PaymentRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        long contentLength = inputMessage.getHeaders().getContentLength();
+        byte[] body;
+        try (InputStream in = inputMessage.getBody()) {
+            // a known length lets the body land in an array of its exact size with a single copy
+            body = contentLength >= 0 && contentLength < Integer.MAX_VALUE
+                    ? in.readNBytes((int) contentLength)
+                    : in.readAllBytes();
+        }
+        try {
+            return parser.parse(body);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    /**
+     * Never chosen, as {@link #canWrite(MediaType)} is false; writes what the Jackson converter
+     * would.
+     */
+    @Override
+    protected void writeInternal(PaymentRequest request, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(objectMapper.writeValueAsBytes(request));
+    }
+}
@@ -0,0 +1,154 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+
+import java.io.IOException;
+
+/**
+ * Reads one JSON payment request from a byte array with the streaming parser, which works on
+ * the array in place. Every field is set in the same pass that locates its value, and the body
+ * is kept on the result, see {@link ParsedPaymentRequest}. Unknown fields are skipped and
+ * scalars are accepted for string fields, as data binding does; trailing content is rejected.
+ */
+public final class PaymentRequestParser {
+
+    private final JsonFactory jsonFactory;
+
+    public PaymentRequestParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public ParsedPaymentRequest parse(byte[] body) throws IOException {
+        ParsedPaymentRequest request = new ParsedPaymentRequest(body);
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Payment request must be a JSON object");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                FieldName field = field(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (field == null) {
+                    request.markNonCanonical();
+                    parser.skipChildren();
+                } else if (field == FieldName.DEBIT_AMOUNT) {
+                    request.setDebitAmount(readInteger(parser, value));
+                } else {
+                    set(request, field, readString(parser, value, field, request));
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unexpected " + token + " in payment request");
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the payment request");
+            }
+        }
+        return request;
+    }
+
+    private static String readString(JsonParser parser, JsonToken token, FieldName field,
+                                     ParsedPaymentRequest request) throws IOException {
+        request.forget(field);
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Field " + field + " must be a string");
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            request.markNonCanonical();
+            return parser.getText();
+        }
+        long quote = parser.currentTokenLocation().getByteOffset();
+        if (quote < 0) {
+            // not UTF-8, so the body bytes are not the string's bytes
+            request.markNonCanonical();
+            return parser.getText();
+        }
+        // the token starts at the opening quote; once read, the parser sits after the closing one
+        int start = (int) quote + 1;
+        String text = parser.getText();
+        int end = (int) parser.currentLocation().getByteOffset() - 1;
+        if (!hasEscapes(request.getBody(), start, end)) {
+            request.locate(field, start, end - start);
+        }
+        return text;
+    }
+
+    private static Integer readInteger(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            try {
+                return text.isEmpty() ? null : Integer.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Field " + FieldName.DEBIT_AMOUNT + " must be an integer", e);
+            }
+        }
+        throw new JsonParseException(parser, "Field " + FieldName.DEBIT_AMOUNT + " must be an integer");
+    }
+
+    private static boolean hasEscapes(byte[] body, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (body[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FieldName field(String name) {
+        return switch (name) {
+            case "tokenKey" -> FieldName.TOKEN_KEY;
+            case "apiID" -> FieldName.API_ID;
+            case "mobile" -> FieldName.MOBILE;
+            case "bankCode" -> FieldName.BANK_CODE;
+            case "accountNo" -> FieldName.ACCOUNT_NO;
+            case "payDate" -> FieldName.PAY_DATE;
+            case "additionalData" -> FieldName.ADDITIONAL_DATA;
+            case "debitAmount" -> FieldName.DEBIT_AMOUNT;
+            case "respCode" -> FieldName.RESP_CODE;
+            case "respDesc" -> FieldName.RESP_DESC;
+            case "traceTransfer" -> FieldName.TRACE_TRANSFER;
+            case "messageType" -> FieldName.MESSAGE_TYPE;
+            case "checkSum" -> FieldName.CHECKSUM;
+            case "orderCode" -> FieldName.ORDER_CODE;
+            case "userName" -> FieldName.USER_NAME;
+            case "realAmount" -> FieldName.REAL_AMOUNT;
+            case "promotionCode" -> FieldName.PROMOTION_CODE;
+            default -> null;
+        };
+    }
+
+    private static void set(ParsedPaymentRequest request, FieldName field, String value) {
+        switch (field) {
+            case TOKEN_KEY -> request.setTokenKey(value);
+            case API_ID -> request.setApiID(value);
+            case MOBILE -> request.setMobile(value);
+            case BANK_CODE -> request.setBankCode(value);
+            case ACCOUNT_NO -> request.setAccountNo(value);
+            case PAY_DATE -> request.setPayDate(value);
+            case ADDITIONAL_DATA -> request.setAdditionalData(value);
+            case RESP_CODE -> request.setRespCode(value);
+            case RESP_DESC -> request.setRespDesc(value);
+            case TRACE_TRANSFER -> request.setTraceTransfer(value);
+            case MESSAGE_TYPE -> request.setMessageType(value);
+            case CHECKSUM -> request.setCheckSum(value);
+            case ORDER_CODE -> request.setOrderCode(value);
+            case USER_NAME -> request.setUserName(value);
+            case REAL_AMOUNT -> request.setRealAmount(value);
+            case PROMOTION_CODE -> request.setPromotionCode(value);
+            default -> throw new IllegalArgumentException("Not a string field: " + field);
+        }
+    }
+}
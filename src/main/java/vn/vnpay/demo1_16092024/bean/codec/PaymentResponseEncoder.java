@@ -0,0 +1,49 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.util.Map;
+
+/**
+ * WebFlux counterpart of {@link PaymentResponseMessageConverter}.
+ */
+public class PaymentResponseEncoder extends AbstractEncoder<PaymentResponse> {
+
+    private final PaymentResponseTemplates templates;
+
+    public PaymentResponseEncoder(PaymentResponseTemplates templates) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.templates = templates;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return elementType.resolve() == PaymentResponse.class && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends PaymentResponse> input, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(input).map(response -> encodeValue(response, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(PaymentResponse response, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        try {
+            return bufferFactory.wrap(templates.write(response));
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("JSON encoding error: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Writes a single {@link PaymentResponse} from {@link PaymentResponseTemplates}. Registered ahead
+ * of the Jackson converter; batch responses still go through Jackson.
+ */
+@Component
+@Profile("!reactive")
+public class PaymentResponseMessageConverter extends AbstractHttpMessageConverter<PaymentResponse> {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private PaymentResponseTemplates templates;
+
+    public PaymentResponseMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @PostConstruct
+    public void init() {
+        templates = new PaymentResponseTemplates(objectMapper);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == PaymentResponse.class;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * Never chosen, as {@link #canRead(MediaType)} is false; reads what the Jackson converter
+     * would.
+     */
+    @Override
+    protected PaymentResponse readInternal(Class<? extends PaymentResponse> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try (InputStream in = inputMessage.getBody()) {
+            return objectMapper.readValue(in, clazz);
+        }
+    }
+
+    @Override
+    protected void writeInternal(PaymentResponse response, HttpOutputMessage outputMessage) throws IOException {
+        byte[] json = templates.write(response);
+        // headers are still open here, so the response goes out with a length instead of chunked
+        outputMessage.getHeaders().setContentLength(json.length);
+        outputMessage.getBody().write(json);
+    }
+}
@@ -0,0 +1,116 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link PaymentResponse} JSON from byte templates, one per {@link PaymentErrorCode} with
+ * and without a checksum, so only the response ID, time and checksum are copied per response.
+ *
+ * <p>The templates are cut out of what the given {@link ObjectMapper} writes for marker values,
+ * so field order, naming and null handling stay exactly as Jackson would produce them. Responses
+ * that do not match a template (unknown code, changed message, or values needing escapes) are
+ * written by Jackson.
+ */
+public class PaymentResponseTemplates {
+
+    private static final String ID_MARKER = "@@responseId@@";
+    private static final String TIME_MARKER = "@@responseTime@@";
+    private static final String CHECKSUM_MARKER = "@@checkSum@@";
+
+    private static final PaymentErrorCode[] CODES = PaymentErrorCode.values();
+
+    private final ObjectMapper objectMapper;
+    private final byte[][][] signed = new byte[CODES.length][][];
+    private final byte[][][] unsigned = new byte[CODES.length][][];
+
+    public PaymentResponseTemplates(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (PaymentErrorCode code : CODES) {
+            signed[code.ordinal()] = cut(code, CHECKSUM_MARKER, ID_MARKER, TIME_MARKER, CHECKSUM_MARKER);
+            unsigned[code.ordinal()] = cut(code, null, ID_MARKER, TIME_MARKER);
+        }
+    }
+
+    public byte[] write(PaymentResponse response) throws JsonProcessingException {
+        PaymentErrorCode code = PaymentErrorCode.fromCode(response.getCode());
+        String checkSum = response.getCheckSum();
+        byte[][] parts = code == null || !code.getMessage().equals(response.getMessage())
+                ? null
+                : checkSum != null ? signed[code.ordinal()] : unsigned[code.ordinal()];
+        if (parts == null || !isPlain(response.getResponseId()) || !isPlain(response.getResponseTime())
+                || checkSum != null && !isPlain(checkSum)) {
+            return objectMapper.writeValueAsBytes(response);
+        }
+        String[] values = checkSum != null
+                ? new String[]{response.getResponseId(), response.getResponseTime(), checkSum}
+                : new String[]{response.getResponseId(), response.getResponseTime()};
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        for (String value : values) {
+            length += value.length();
+        }
+        byte[] json = new byte[length];
+        int position = 0;
+        for (int i = 0; i < values.length; i++) {
+            System.arraycopy(parts[i], 0, json, position, parts[i].length);
+            position += parts[i].length;
+            String value = values[i];
+            // plain values are printable ASCII, one byte per char
+            for (int j = 0; j < value.length(); j++) {
+                json[position++] = (byte) value.charAt(j);
+            }
+        }
+        byte[] tail = parts[values.length];
+        System.arraycopy(tail, 0, json, position, tail.length);
+        return json;
+    }
+
+    /**
+     * Serializes a response with marker values and splits it around them. Returns {@code null}
+     * when a marker is missing, in which case that code always goes through Jackson.
+     */
+    private byte[][] cut(PaymentErrorCode code, String checkSum, String... markers) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(
+                    new PaymentResponse(code.getCode(), code.getMessage(), ID_MARKER, TIME_MARKER, checkSum));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        byte[][] parts = new byte[markers.length + 1][];
+        int from = 0;
+        for (int i = 0; i < markers.length; i++) {
+            int at = json.indexOf(markers[i], from);
+            if (at < 0) {
+                return null;
+            }
+            parts[i] = json.substring(from, at).getBytes(StandardCharsets.UTF_8);
+            from = at + markers[i].length();
+        }
+        parts[markers.length] = json.substring(from).getBytes(StandardCharsets.UTF_8);
+        return parts;
+    }
+
+    /**
+     * Whether {@code value} is printable ASCII that JSON strings carry without escapes.
+     */
+    private static boolean isPlain(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
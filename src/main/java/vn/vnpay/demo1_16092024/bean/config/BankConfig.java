@@ -2,7 +2,9 @@ package vn.vnpay.demo1_16092024.bean.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -11,6 +13,8 @@ public class BankConfig {
 
     private List<Bank> bankList;
 
+    private String reloadFile;
+
     public List<Bank> getBankList() {
         return bankList;
     }
@@ -19,9 +23,25 @@ public class BankConfig {
         this.bankList = bankList;
     }
 
+    public String getReloadFile() {
+        return reloadFile;
+    }
+
+    public void setReloadFile(String reloadFile) {
+        this.reloadFile = reloadFile;
+    }
+
     public static class Bank {
         private String bankCode;
         private String privateKey;
+        private Duration duplicateWindow;
+        private List<FieldName> optionalFields;
+        private Integer maxDebitAmount;
+        private Duration recordTtl;
+        private Double ratePerSecond;
+        private Integer burst;
+        private Integer maxConcurrent;
+        private String bulkhead;
 
         public String getBankCode() {
             return bankCode;
@@ -38,5 +58,69 @@ public class BankConfig {
         public void setPrivateKey(String privateKey) {
             this.privateKey = privateKey;
         }
+
+        public Duration getDuplicateWindow() {
+            return duplicateWindow;
+        }
+
+        public void setDuplicateWindow(Duration duplicateWindow) {
+            this.duplicateWindow = duplicateWindow;
+        }
+
+        public List<FieldName> getOptionalFields() {
+            return optionalFields;
+        }
+
+        public void setOptionalFields(List<FieldName> optionalFields) {
+            this.optionalFields = optionalFields;
+        }
+
+        public Integer getMaxDebitAmount() {
+            return maxDebitAmount;
+        }
+
+        public void setMaxDebitAmount(Integer maxDebitAmount) {
+            this.maxDebitAmount = maxDebitAmount;
+        }
+
+        public Duration getRecordTtl() {
+            return recordTtl;
+        }
+
+        public void setRecordTtl(Duration recordTtl) {
+            this.recordTtl = recordTtl;
+        }
+
+        public Double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(Double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public Integer getBurst() {
+            return burst;
+        }
+
+        public void setBurst(Integer burst) {
+            this.burst = burst;
+        }
+
+        public Integer getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(Integer maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public String getBulkhead() {
+            return bulkhead;
+        }
+
+        public void setBulkhead(String bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
 }
@@ -0,0 +1,92 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Reloads {@link BankRegistry} whenever {@code banks.reloadFile} changes on disk. A reload the
+ * registry refuses is logged and the previous banks stay in service.
+ */
+@Component
+public class BankConfigWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankConfigWatcher.class);
+
+    @Autowired
+    private BankConfig bankConfig;
+
+    @Autowired
+    private BankRegistry bankRegistry;
+
+    private WatchService watchService;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (bankConfig.getReloadFile() == null) {
+            return;
+        }
+        Path file = Path.of(bankConfig.getReloadFile()).toAbsolutePath();
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread watcher = new Thread(() -> watch(file), "bank-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching {} for bank configuration changes", file);
+        if (Files.exists(file)) {
+            reload(file);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch(Path file) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Bank configuration watcher stopped");
+        }
+    }
+
+    private void reload(Path file) {
+        try {
+            bankRegistry.refresh();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to reload bank configuration from {}, keeping previous registry", file, e);
+        }
+    }
+}
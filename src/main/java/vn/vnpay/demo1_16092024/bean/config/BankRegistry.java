@@ -0,0 +1,132 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash-indexed, immutable view of {@link BankConfig}. Readers go through a single volatile
+ * read; a reload builds a complete new index and publishes it in one write, keeping the
+ * limiter of every bank whose limits did not change. A configuration
+ * with no banks or with an unusable entry is refused as a whole, so a half-written reload file
+ * never replaces a working registry.
+ */
+@Component
+public class BankRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankRegistry.class);
+
+    private static final String BANKS_PREFIX = "banks";
+
+    @Autowired
+    private BankConfig bankConfig;
+
+    @Autowired
+    private IdempotencyConfig idempotencyConfig;
+
+    @Autowired
+    private StorageConfig storageConfig;
+
+    private volatile Map<String, RegisteredBank> banks = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        reload(bankConfig);
+    }
+
+    /**
+     * Returns the bank registered under {@code bankCode}, or {@code null} when there is none.
+     */
+    public RegisteredBank find(String bankCode) {
+        return bankCode == null ? null : banks.get(bankCode);
+    }
+
+    public Set<String> getBankCodes() {
+        return banks.keySet();
+    }
+
+    public int size() {
+        return banks.size();
+    }
+
+    /**
+     * Builds an index from {@code config} and swaps it in.
+     *
+     * @throws IllegalArgumentException if {@code config} has no banks, an entry without
+     *                                  bankCode or privateKey, or a bankCode listed twice; the
+     *                                  current registry is kept
+     */
+    public synchronized void reload(BankConfig config) {
+        List<BankConfig.Bank> bankList = config.getBankList();
+        if (bankList == null || bankList.isEmpty()) {
+            throw new IllegalArgumentException("Bank configuration lists no banks");
+        }
+        Map<String, RegisteredBank> index = new HashMap<>();
+        for (BankConfig.Bank bank : bankList) {
+            if (bank.getBankCode() == null || bank.getBankCode().isBlank()
+                    || bank.getPrivateKey() == null || bank.getPrivateKey().isEmpty()) {
+                throw new IllegalArgumentException("Bank entry without bankCode or privateKey: " + bank.getBankCode());
+            }
+            try {
+                if (index.putIfAbsent(bank.getBankCode(), new RegisteredBank(bank, idempotencyConfig.getDefaultWindow(),
+                        storageConfig.getDefaultRecordTtl(), banks.get(bank.getBankCode()))) != null) {
+                    throw new IllegalArgumentException("Bank " + bank.getBankCode() + " is listed twice");
+                }
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Cannot initialize signer for bank " + bank.getBankCode(), e);
+            }
+        }
+        banks = Map.copyOf(index);
+        logger.info("Bank registry loaded with {} bank(s)", index.size());
+    }
+
+    /**
+     * Rebinds the {@code banks} section from {@link BankConfig#getReloadFile()} and swaps the
+     * index. The startup configuration cannot change at runtime, so there is nothing to refresh
+     * from without a reload file.
+     *
+     * @throws IllegalStateException    if no reload file is configured
+     * @throws IllegalArgumentException if the file's configuration is refused by {@link #reload}
+     */
+    public synchronized void refresh() throws IOException {
+        String reloadFile = bankConfig.getReloadFile();
+        if (reloadFile == null) {
+            throw new IllegalStateException("banks.reloadFile is not set, nothing to refresh from");
+        }
+        reload(bindFromFile(Path.of(reloadFile)));
+    }
+
+    private BankConfig bindFromFile(Path file) throws IOException {
+        if (!Files.isReadable(file)) {
+            throw new NoSuchFileException(file.toString(), null, "Bank reload file is not readable");
+        }
+        String fileName = file.getFileName().toString();
+        PropertySourceLoader loader = fileName.endsWith(".properties")
+                ? new PropertiesPropertySourceLoader()
+                : new YamlPropertySourceLoader();
+        List<PropertySource<?>> sources = loader.load(fileName, new FileSystemResource(file));
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources));
+        return binder.bindOrCreate(BANKS_PREFIX, Bindable.of(BankConfig.class));
+    }
+}
@@ -0,0 +1,32 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.batch")
+public class BatchConfig {
+
+    private int maxSize = 1000;
+
+    /**
+     * Threads verifying batch items; {@code 0} uses one per available processor.
+     */
+    private int parallelism = 0;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+}
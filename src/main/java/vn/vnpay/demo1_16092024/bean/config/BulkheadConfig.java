@@ -0,0 +1,95 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.bulkhead")
+public class BulkheadConfig {
+
+    public static final String DEFAULT_TIER = "default";
+
+    private boolean enabled = true;
+
+    /**
+     * Bulkheads by name. Banks pick one with {@code banks.bankList[].bulkhead}; banks without
+     * one, or naming a tier that is not configured, share {@value #DEFAULT_TIER}.
+     */
+    private Map<String, Tier> tiers = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Tier> getTiers() {
+        return tiers;
+    }
+
+    public void setTiers(Map<String, Tier> tiers) {
+        this.tiers = tiers;
+    }
+
+    public static class Tier {
+
+        /**
+         * Threads running validation and checksum work; on virtual threads, how many requests
+         * may run that work at once.
+         */
+        private int threads = 8;
+
+        /**
+         * Requests waiting for a thread; beyond this they are rejected.
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * Longest a request may wait for a thread before it is answered busy.
+         */
+        private Duration queueTimeout = Duration.ofMillis(100);
+
+        /**
+         * Requests in the bulkhead at once, Redis write included.
+         */
+        private int maxConcurrent = 500;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import vn.vnpay.demo1_16092024.bean.constant.ExecutionMode;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.execution")
+public class ExecutionConfig {
+
+    private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ExecutionMode mode) {
+        this.mode = mode;
+    }
+}
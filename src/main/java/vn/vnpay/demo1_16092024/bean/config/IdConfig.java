@@ -0,0 +1,38 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Instant;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.id")
+public class IdConfig {
+
+    /**
+     * Unique per running instance, {@code 0..1023}. Required except under the {@code dev}
+     * profile, where an unset value is derived from the host name.
+     */
+    private Integer nodeId;
+
+    /**
+     * Start of the ID clock. Changing it on a live system can repeat IDs.
+     */
+    private Instant epoch = Instant.parse("2024-01-01T00:00:00Z");
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(Integer nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Instant getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(Instant epoch) {
+        this.epoch = epoch;
+    }
+}
@@ -0,0 +1,51 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.idempotency")
+public class IdempotencyConfig {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 100_000;
+
+    private Duration defaultWindow = Duration.ofMinutes(10);
+
+    private String keyPrefix = "payment:idempotency:";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getDefaultWindow() {
+        return defaultWindow;
+    }
+
+    public void setDefaultWindow(Duration defaultWindow) {
+        this.defaultWindow = defaultWindow;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+}
@@ -0,0 +1,81 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.journal")
+public class JournalConfig {
+
+    private boolean enabled = false;
+
+    private String directory = "journal";
+
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * Longest an appended entry waits before the journal is forced to disk.
+     */
+    private Duration commitInterval = Duration.ofMillis(10);
+
+    /**
+     * Hold each payment response until its journal entry has been forced to disk.
+     */
+    private boolean awaitSync = false;
+
+    /**
+     * HMAC key of the hash chain linking the journal entries. Required when enabled; there is
+     * deliberately no default.
+     */
+    private String key;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Duration getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(Duration commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    public boolean isAwaitSync() {
+        return awaitSync;
+    }
+
+    public void setAwaitSync(boolean awaitSync) {
+        this.awaitSync = awaitSync;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+}
@@ -0,0 +1,22 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.logging")
+public class LoggingConfig {
+
+    /**
+     * Fraction of requests, between 0 and 1, that also get a masked request/response detail line.
+     */
+    private double detailSampleRate = 0.01;
+
+    public double getDetailSampleRate() {
+        return detailSampleRate;
+    }
+
+    public void setDetailSampleRate(double detailSampleRate) {
+        this.detailSampleRate = detailSampleRate;
+    }
+}
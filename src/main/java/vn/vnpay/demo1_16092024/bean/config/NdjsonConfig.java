@@ -0,0 +1,48 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.ndjson")
+public class NdjsonConfig {
+
+    /**
+     * Records in flight at once; also the number of reusable request objects per stream.
+     */
+    private int window = 256;
+
+    /**
+     * NDJSON file to process at startup instead of serving requests.
+     */
+    private String input;
+
+    /**
+     * Where the CLI writes responses; standard output when unset.
+     */
+    private String output;
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public void setOutput(String output) {
+        this.output = output;
+    }
+}
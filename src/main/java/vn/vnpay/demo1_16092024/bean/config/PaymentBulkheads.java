@@ -0,0 +1,76 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.utils.Bulkhead;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One {@link Bulkhead} per configured tier, plus {@link BulkheadConfig#DEFAULT_TIER}. Tiers are
+ * fixed at startup; a bank registry reload may move a bank between existing tiers only.
+ */
+@Component
+public class PaymentBulkheads {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentBulkheads.class);
+
+    @Autowired
+    private BulkheadConfig config;
+
+    @Autowired
+    private PaymentExecutors paymentExecutors;
+
+    @Autowired
+    private BankRegistry bankRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Map<String, Bulkhead> bulkheads = Map.of();
+    private Bulkhead defaultBulkhead;
+
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Map<String, BulkheadConfig.Tier> tiers = new LinkedHashMap<>(config.getTiers());
+        tiers.putIfAbsent(BulkheadConfig.DEFAULT_TIER, new BulkheadConfig.Tier());
+        Map<String, Bulkhead> created = new LinkedHashMap<>();
+        tiers.forEach((name, tier) -> created.put(name,
+                new Bulkhead(name, tier, paymentExecutors.isVirtual(), meterRegistry)));
+        bulkheads = Map.copyOf(created);
+        defaultBulkhead = bulkheads.get(BulkheadConfig.DEFAULT_TIER);
+        for (String bankCode : bankRegistry.getBankCodes()) {
+            String tier = bankRegistry.find(bankCode).getBulkhead();
+            if (!bulkheads.containsKey(tier)) {
+                logger.warn("Bank {} names bulkhead tier {} which is not configured, using {}",
+                        bankCode, tier, BulkheadConfig.DEFAULT_TIER);
+            }
+        }
+        logger.info("Payment bulkheads: {}", bulkheads.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+
+    /**
+     * Returns the bulkhead of {@code bank}'s tier, or {@code null} when bulkheads are disabled
+     * or the bank is unknown.
+     */
+    public Bulkhead forBank(RegisteredBank bank) {
+        if (bank == null || defaultBulkhead == null) {
+            return null;
+        }
+        return bulkheads.getOrDefault(bank.getBulkhead(), defaultBulkhead);
+    }
+}
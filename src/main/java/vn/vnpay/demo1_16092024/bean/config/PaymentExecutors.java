@@ -0,0 +1,127 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.constant.ExecutionMode;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Owns the executors payment work runs on. In {@link ExecutionMode#PLATFORM} mode requests stay
+ * on Tomcat's own request threads. In {@link ExecutionMode#VIRTUAL} mode those are replaced by
+ * one virtual thread per request and a JFR stream reports any carrier pinning; the journal and
+ * spool appends lock with {@code ReentrantLock} rather than monitors for that reason. The JDK's
+ * own pinning trace is read once at startup, so it has to be passed on the command line:
+ * {@code -Djdk.tracePinnedThreads=short}.
+ */
+@Component
+public class PaymentExecutors implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentExecutors.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(20);
+
+    @Autowired
+    private ExecutionConfig config;
+
+    @Autowired
+    private BatchConfig batchConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+    private ForkJoinPool verificationPool;
+    private boolean virtual;
+    private RecordingStream pinnedEvents;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = batchConfig.getParallelism() > 0
+                ? batchConfig.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        verificationPool = newVerificationPool(parallelism);
+        if (config.getMode() == ExecutionMode.VIRTUAL) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+            virtual = true;
+            startPinningMonitor();
+            logger.info("Payment requests run on virtual threads");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pinnedEvents != null) {
+            pinnedEvents.close();
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        verificationPool.shutdown();
+    }
+
+    @Override
+    public void customize(ProtocolHandler protocolHandler) {
+        if (virtual) {
+            protocolHandler.setExecutor(executor);
+        }
+    }
+
+    /**
+     * CPU-bound pool for verifying batch items in parallel, sized to the cores rather than to
+     * the request pool.
+     */
+    public ForkJoinPool getVerificationPool() {
+        return verificationPool;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    private void startPinningMonitor() {
+        Counter pinned = Counter.builder("payment.execution.virtual.pinned")
+                .description("Virtual threads pinned to their carrier longer than the JFR threshold")
+                .register(meterRegistry);
+        pinnedEvents = new RecordingStream();
+        pinnedEvents.enable(PINNED_EVENT).withThreshold(PINNED_THRESHOLD).withStackTrace();
+        pinnedEvents.onEvent(PINNED_EVENT, event -> {
+            pinned.increment();
+            logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), topFrame(event));
+        });
+        pinnedEvents.startAsync();
+    }
+
+    private static String topFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame frame = event.getStackTrace().getFrames().get(0);
+        return frame.getMethod().getType().getName() + '.' + frame.getMethod().getName() + ':' + frame.getLineNumber();
+    }
+
+    public static ForkJoinPool newVerificationPool(int parallelism) {
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("payment-verify-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,48 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.query")
+public class QueryConfig {
+
+    private long cacheMaximumSize = 50_000;
+
+    /**
+     * How long a record read from Redis is served locally. Writes from this instance invalidate
+     * it immediately; writes from other instances become visible once it expires.
+     */
+    private Duration cacheTtl = Duration.ofSeconds(5);
+
+    /**
+     * Upper bound on the keys of one multi-key lookup.
+     */
+    private int maxKeys = 1000;
+
+    public long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    public void setCacheMaximumSize(long cacheMaximumSize) {
+        this.cacheMaximumSize = cacheMaximumSize;
+    }
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+}
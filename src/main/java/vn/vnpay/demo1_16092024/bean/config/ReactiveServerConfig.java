@@ -0,0 +1,41 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentRequestDecoder;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentRequestParser;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentResponseEncoder;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentResponseTemplates;
+
+/**
+ * Tomcat is on the classpath for the servlet stack, so the reactive profile pins the event-loop
+ * Netty server explicitly instead of letting auto-configuration pick Tomcat.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Custom typed codecs are consulted before the Jackson ones, so single payment requests are
+     * read by {@link PaymentRequestParser} and single responses written from
+     * {@link PaymentResponseTemplates}.
+     */
+    @Bean
+    public CodecCustomizer paymentRequestCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> {
+            configurer.customCodecs()
+                    .registerWithDefaultConfig(new PaymentRequestDecoder(new PaymentRequestParser(objectMapper.getFactory())));
+            configurer.customCodecs()
+                    .registerWithDefaultConfig(new PaymentResponseEncoder(new PaymentResponseTemplates(objectMapper)));
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.redis.resilience")
+public class RedisResilienceConfig {
+
+    /**
+     * Budget for one attempt at storing a payment record.
+     */
+    private Duration writeTimeout = Duration.ofMillis(200);
+
+    private int maxAttempts = 2;
+
+    private Duration retryBackoff = Duration.ofMillis(20);
+
+    /**
+     * Consecutive failed Redis commands that open the circuit.
+     */
+    private int failureThreshold = 20;
+
+    /**
+     * How long an open circuit fails fast before letting one probe command through.
+     */
+    private Duration openDuration = Duration.ofSeconds(5);
+
+    /**
+     * Spool records that could not be written instead of failing the payment.
+     */
+    private boolean spoolEnabled = true;
+
+    private String spoolDirectory = "spool";
+
+    private int spoolSegmentSize = 16 * 1024 * 1024;
+
+    private int replayBatchSize = 256;
+
+    /**
+     * Pause between replay attempts. The spool's sync thread also wakes this often when idle.
+     */
+    private Duration replayInterval = Duration.ofMillis(200);
+
+    public Duration getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(Duration writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    public boolean isSpoolEnabled() {
+        return spoolEnabled;
+    }
+
+    public void setSpoolEnabled(boolean spoolEnabled) {
+        this.spoolEnabled = spoolEnabled;
+    }
+
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public int getSpoolSegmentSize() {
+        return spoolSegmentSize;
+    }
+
+    public void setSpoolSegmentSize(int spoolSegmentSize) {
+        this.spoolSegmentSize = spoolSegmentSize;
+    }
+
+    public int getReplayBatchSize() {
+        return replayBatchSize;
+    }
+
+    public void setReplayBatchSize(int replayBatchSize) {
+        this.replayBatchSize = replayBatchSize;
+    }
+
+    public Duration getReplayInterval() {
+        return replayInterval;
+    }
+
+    public void setReplayInterval(Duration replayInterval) {
+        this.replayInterval = replayInterval;
+    }
+}
@@ -0,0 +1,27 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.redis.sharding")
+public class RedisShardingConfig {
+
+    /**
+     * Redis URIs of independent nodes to shard keys across by hash slot, e.g.
+     * {@code redis://host:6379}. Empty means a single node or, with
+     * {@code spring.data.redis.cluster.nodes}, a Redis Cluster.
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes;
+    }
+}
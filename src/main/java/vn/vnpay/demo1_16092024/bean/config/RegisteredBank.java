@@ -0,0 +1,92 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.utils.BankLimiter;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+import vn.vnpay.demo1_16092024.bean.utils.ValidationRules;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+
+/**
+ * Immutable snapshot of one {@link BankConfig.Bank} entry as served by {@link BankRegistry}.
+ */
+public final class RegisteredBank {
+
+    private final String bankCode;
+    private final String privateKey;
+    private final HmacSha256Signer signer;
+    private final HmacSha256Signer.Prefix[] responsePrefixes;
+    private final Duration duplicateWindow;
+    private final ValidationRules validationRules;
+    private final Duration recordTtl;
+    private final BankLimiter limiter;
+    private final String bulkhead;
+
+    /**
+     * @param current the entry this one replaces on a reload, or {@code null}; its limiter is
+     *                kept when the limits did not change
+     */
+    RegisteredBank(BankConfig.Bank bank, Duration defaultDuplicateWindow, Duration defaultRecordTtl,
+                   RegisteredBank current) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.bankCode = bank.getBankCode();
+        this.privateKey = bank.getPrivateKey();
+        this.signer = new HmacSha256Signer(bank.getPrivateKey());
+        this.responsePrefixes = new HmacSha256Signer.Prefix[PaymentErrorCode.values().length];
+        for (PaymentErrorCode code : PaymentErrorCode.values()) {
+            responsePrefixes[code.ordinal()] = signer.prefix(code.getCode(), code.getMessage());
+        }
+        this.duplicateWindow = bank.getDuplicateWindow() != null ? bank.getDuplicateWindow() : defaultDuplicateWindow;
+        this.validationRules = ValidationRules.of(bank.getOptionalFields(), bank.getMaxDebitAmount());
+        this.recordTtl = bank.getRecordTtl() != null ? bank.getRecordTtl() : defaultRecordTtl;
+        this.limiter = BankLimiter.of(bank.getRatePerSecond(), bank.getBurst(), bank.getMaxConcurrent(),
+                current != null ? current.limiter : null);
+        this.bulkhead = bank.getBulkhead() != null ? bank.getBulkhead() : BulkheadConfig.DEFAULT_TIER;
+    }
+
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    public String getPrivateKey() {
+        return privateKey;
+    }
+
+    public HmacSha256Signer getSigner() {
+        return signer;
+    }
+
+    /**
+     * Response signer prefix holding {@code code} and its message, encoded once.
+     */
+    public HmacSha256Signer.Prefix getResponsePrefix(PaymentErrorCode code) {
+        return responsePrefixes[code.ordinal()];
+    }
+
+    public Duration getDuplicateWindow() {
+        return duplicateWindow;
+    }
+
+    public ValidationRules getValidationRules() {
+        return validationRules;
+    }
+
+    /**
+     * Expiry applied to the stored record, or {@code null}/non-positive to keep it.
+     */
+    public Duration getRecordTtl() {
+        return recordTtl;
+    }
+
+    public BankLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Name of the {@link BulkheadConfig} tier this bank's requests run in.
+     */
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
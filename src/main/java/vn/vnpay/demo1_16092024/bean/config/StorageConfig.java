@@ -0,0 +1,62 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import vn.vnpay.demo1_16092024.bean.constant.StorageCodec;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.storage")
+public class StorageConfig {
+
+    /**
+     * Format new records are written in; both formats are always readable.
+     */
+    private StorageCodec codec = StorageCodec.BINARY;
+
+    private boolean compressAdditionalData = true;
+
+    /**
+     * additionalData shorter than this many UTF-8 bytes is stored uncompressed.
+     */
+    private int minCompressLength = 64;
+
+    /**
+     * Expiry of a stored record for banks without their own recordTtl; zero or negative keeps
+     * records forever.
+     */
+    private Duration defaultRecordTtl = Duration.ofDays(30);
+
+    public StorageCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec(StorageCodec codec) {
+        this.codec = codec;
+    }
+
+    public boolean isCompressAdditionalData() {
+        return compressAdditionalData;
+    }
+
+    public void setCompressAdditionalData(boolean compressAdditionalData) {
+        this.compressAdditionalData = compressAdditionalData;
+    }
+
+    public int getMinCompressLength() {
+        return minCompressLength;
+    }
+
+    public void setMinCompressLength(int minCompressLength) {
+        this.minCompressLength = minCompressLength;
+    }
+
+    public Duration getDefaultRecordTtl() {
+        return defaultRecordTtl;
+    }
+
+    public void setDefaultRecordTtl(Duration defaultRecordTtl) {
+        this.defaultRecordTtl = defaultRecordTtl;
+    }
+}
@@ -0,0 +1,47 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.warmup")
+public class WarmupConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * Sample requests run through parsing, validation, signing and encoding per bank.
+     */
+    private int iterations = 2000;
+
+    /**
+     * Upper bound on the whole warm-up, Redis round trip included. Readiness waits for it.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
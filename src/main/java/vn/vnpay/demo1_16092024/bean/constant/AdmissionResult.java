@@ -0,0 +1,15 @@
+package vn.vnpay.demo1_16092024.bean.constant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum AdmissionResult {
+    ADMITTED("admitted"),
+    RATE_LIMITED("rate_limited"),
+    CONCURRENCY_LIMITED("concurrency_limited"),;
+
+    private final String tag;
+
+}
@@ -0,0 +1,15 @@
+package vn.vnpay.demo1_16092024.bean.constant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum BulkheadRejection {
+    FULL("full"),
+    QUEUE_FULL("queue_full"),
+    QUEUE_TIMEOUT("queue_timeout"),;
+
+    private final String tag;
+
+}
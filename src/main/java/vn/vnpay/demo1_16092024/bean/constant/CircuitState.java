@@ -0,0 +1,15 @@
+package vn.vnpay.demo1_16092024.bean.constant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum CircuitState {
+    CLOSED(0),
+    OPEN(1),
+    HALF_OPEN(2),;
+
+    private final int gaugeValue;
+
+}
@@ -0,0 +1,6 @@
+package vn.vnpay.demo1_16092024.bean.constant;
+
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL
+}
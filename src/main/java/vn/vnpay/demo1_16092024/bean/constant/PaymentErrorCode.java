@@ -10,9 +10,24 @@ public enum PaymentErrorCode {
     INVALID_INPUT("01", "Invalid Input Data"),
     BANK_CODE_NOT_FOUND("02", "Bank Code not found"),
     INVALID_CHECKSUM("03", "Invalid CheckSum"),
+    DUPLICATE_TRANSACTION("04", "Duplicate transaction in progress"),
+    TRANSACTION_NOT_FOUND("05", "Transaction not found"),
+    TOO_MANY_REQUESTS("06", "Too many requests"),
+    PARTNER_BUSY("07", "Partner busy, retry later"),
     SYSTEM_ERROR("99", "System error"),;
 
     private final String code;
     private final String message;
 
+    /**
+     * Returns the constant whose {@code code} matches, or {@code null} for an unknown code.
+     */
+    public static PaymentErrorCode fromCode(String code) {
+        for (PaymentErrorCode errorCode : values()) {
+            if (errorCode.code.equals(code)) {
+                return errorCode;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,18 @@
+package vn.vnpay.demo1_16092024.bean.constant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum PaymentStage {
+    VALIDATION("validation"),
+    BANK_LOOKUP("bank_lookup"),
+    CHECKSUM("checksum"),
+    SERIALIZATION("serialization"),
+    REDIS_WRITE("redis_write"),
+    JOURNAL("journal"),;
+
+    private final String tag;
+
+}
@@ -0,0 +1,18 @@
+package vn.vnpay.demo1_16092024.bean.constant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum PreFilterRejection {
+    TOO_LARGE("too_large", PaymentErrorCode.INVALID_INPUT),
+    EMPTY("empty", PaymentErrorCode.INVALID_INPUT),
+    MALFORMED("malformed", PaymentErrorCode.INVALID_INPUT),
+    MISSING_BANK_CODE("missing_bank_code", PaymentErrorCode.INVALID_INPUT),
+    UNKNOWN_BANK("unknown_bank", PaymentErrorCode.BANK_CODE_NOT_FOUND),;
+
+    private final String tag;
+    private final PaymentErrorCode errorCode;
+
+}
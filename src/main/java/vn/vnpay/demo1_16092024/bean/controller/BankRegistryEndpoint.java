@@ -0,0 +1,42 @@
+package vn.vnpay.demo1_16092024.bean.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Component
+@Endpoint(id = "banks")
+public class BankRegistryEndpoint {
+
+    @Autowired
+    private BankRegistry bankRegistry;
+
+    @ReadOperation
+    public Map<String, Object> banks() {
+        return describe();
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() throws IOException {
+        try {
+            bankRegistry.refresh();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "Bank registry not refreshed: " + e.getMessage());
+        }
+        return describe();
+    }
+
+    private Map<String, Object> describe() {
+        Set<String> bankCodes = new TreeSet<>(bankRegistry.getBankCodes());
+        return Map.of("count", bankCodes.size(), "bankCodes", bankCodes);
+    }
+}
@@ -1,21 +1,36 @@
 package vn.vnpay.demo1_16092024.bean.controller;
 
-import jakarta.validation.Valid;
-import vn.vnpay.demo1_16092024.bean.config.BankConfig;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import vn.vnpay.demo1_16092024.bean.config.PaymentExecutors;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentQuery;
 import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentQueryResponse;
 import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
 import vn.vnpay.demo1_16092024.bean.service.IPaymentService;
+import vn.vnpay.demo1_16092024.bean.service.NdjsonPaymentProcessor;
 import vn.vnpay.demo1_16092024.bean.service.PaymentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api")
 public class PaymentController {
 
@@ -25,12 +40,69 @@ public class PaymentController {
     private IPaymentService iPaymentService;
 
     @Autowired
-    private BankConfig bankConfig;
+    private PaymentExecutors paymentExecutors;
+
+    @Autowired
+    private NdjsonPaymentProcessor ndjsonPaymentProcessor;
 
     @PostMapping("/process")
-    public ResponseEntity<PaymentResponse> processPayment(@Valid @RequestBody PaymentRequest request) {
-        logger.info("Received payment request");
-        PaymentResponse response = iPaymentService.processPayment(request, bankConfig);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<PaymentResponse>> processPayment(@RequestBody PaymentRequest request) {
+        logger.debug("Received payment request");
+        if (paymentExecutors.isVirtual()) {
+            // blocking is cheap on a virtual thread, so skip the second async dispatch
+            return CompletableFuture.completedFuture(toEntity(iPaymentService.processPayment(request)));
+        }
+        return iPaymentService.processPaymentAsync(request).thenApply(PaymentController::toEntity);
+    }
+
+    @PostMapping("/process/batch")
+    public CompletableFuture<ResponseEntity<List<PaymentResponse>>> processBatch(@RequestBody List<PaymentRequest> requests) {
+        logger.debug("Received payment batch of {} request(s)", requests.size());
+        return iPaymentService.processBatchAsync(requests).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams one response line per request line. Runs on the request thread for the whole
+     * stream, so long files are not cut off by the async request timeout.
+     */
+    @PostMapping(value = "/process/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void processStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        long count = ndjsonPaymentProcessor.process(request.getInputStream(), response.getOutputStream());
+        logger.debug("Streamed {} payment response(s)", count);
+    }
+
+    @GetMapping("/payment/{bankCode}/{tokenKey}")
+    public CompletableFuture<ResponseEntity<PaymentQueryResponse>> findPayment(@PathVariable String bankCode,
+                                                                               @PathVariable String tokenKey) {
+        logger.debug("Received payment lookup");
+        return iPaymentService.findPaymentAsync(bankCode, tokenKey).thenApply(PaymentController::toQueryEntity);
+    }
+
+    @PostMapping("/payment/query")
+    public CompletableFuture<ResponseEntity<List<PaymentQueryResponse>>> findPayments(@RequestBody List<PaymentQuery> queries) {
+        logger.debug("Received payment lookup of {} key(s)", queries.size());
+        return iPaymentService.findPaymentsAsync(queries).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * A shed request is answered with 429 and a saturated bulkhead with 503, so clients and load
+     * balancers back off.
+     */
+    private static ResponseEntity<PaymentResponse> toEntity(PaymentResponse response) {
+        HttpStatus status = HttpStatus.OK;
+        if (PaymentErrorCode.TOO_MANY_REQUESTS.getCode().equals(response.getCode())) {
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        } else if (PaymentErrorCode.PARTNER_BUSY.getCode().equals(response.getCode())) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return new ResponseEntity<>(response, status);
+    }
+
+    private static ResponseEntity<PaymentQueryResponse> toQueryEntity(PaymentQueryResponse response) {
+        HttpStatus status = PaymentErrorCode.TRANSACTION_NOT_FOUND.getCode().equals(response.getCode())
+                ? HttpStatus.NOT_FOUND
+                : HttpStatus.OK;
+        return new ResponseEntity<>(response, status);
     }
 }
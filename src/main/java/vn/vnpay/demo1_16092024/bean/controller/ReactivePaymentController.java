@@ -0,0 +1,102 @@
+package vn.vnpay.demo1_16092024.bean.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import vn.vnpay.demo1_16092024.bean.config.NdjsonConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentQuery;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentQueryResponse;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.service.ReactivePaymentService;
+
+import java.util.List;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api")
+public class ReactivePaymentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePaymentController.class);
+
+    @Autowired
+    private ReactivePaymentService reactivePaymentService;
+
+    @Autowired
+    private NdjsonConfig ndjsonConfig;
+
+    @PostMapping("/process")
+    public Mono<ResponseEntity<PaymentResponse>> processPayment(@RequestBody Mono<PaymentRequest> request) {
+        return request
+                .doOnNext(received -> logger.debug("Received payment request"))
+                .flatMap(reactivePaymentService::processPaymentReactive)
+                .map(ReactivePaymentController::toEntity);
+    }
+
+    @PostMapping("/process/batch")
+    public Mono<ResponseEntity<List<PaymentResponse>>> processBatch(@RequestBody Mono<List<PaymentRequest>> requests) {
+        return requests
+                .doOnNext(received -> logger.debug("Received payment batch of {} request(s)", received.size()))
+                .flatMap(reactivePaymentService::processBatchReactive)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * The NDJSON decoder parses records incrementally; at most {@code payment.ndjson.window} are
+     * processed at once and responses keep the input order. As on the servlet path, records skip
+     * per-bank admission and the bank bulkheads; the window bounds them instead.
+     */
+    @PostMapping(value = "/process/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PaymentResponse> processStream(@RequestBody Flux<PaymentRequest> requests) {
+        return requests.flatMapSequential(
+                request -> Mono.fromFuture(() -> reactivePaymentService.processStreamedPaymentAsync(request)),
+                Math.max(1, ndjsonConfig.getWindow()));
+    }
+
+    @GetMapping("/payment/{bankCode}/{tokenKey}")
+    public Mono<ResponseEntity<PaymentQueryResponse>> findPayment(@PathVariable String bankCode,
+                                                                  @PathVariable String tokenKey) {
+        logger.debug("Received payment lookup");
+        return Mono.fromFuture(() -> reactivePaymentService.findPaymentAsync(bankCode, tokenKey))
+                .map(ReactivePaymentController::toQueryEntity);
+    }
+
+    @PostMapping("/payment/query")
+    public Mono<ResponseEntity<List<PaymentQueryResponse>>> findPayments(@RequestBody Mono<List<PaymentQuery>> queries) {
+        return queries
+                .doOnNext(received -> logger.debug("Received payment lookup of {} key(s)", received.size()))
+                .flatMap(received -> Mono.fromFuture(() -> reactivePaymentService.findPaymentsAsync(received)))
+                .map(ResponseEntity::ok);
+    }
+
+    private static ResponseEntity<PaymentResponse> toEntity(PaymentResponse response) {
+        HttpStatus status = HttpStatus.OK;
+        if (PaymentErrorCode.TOO_MANY_REQUESTS.getCode().equals(response.getCode())) {
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        } else if (PaymentErrorCode.PARTNER_BUSY.getCode().equals(response.getCode())) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return new ResponseEntity<>(response, status);
+    }
+
+    private static ResponseEntity<PaymentQueryResponse> toQueryEntity(PaymentQueryResponse response) {
+        HttpStatus status = PaymentErrorCode.TRANSACTION_NOT_FOUND.getCode().equals(response.getCode())
+                ? HttpStatus.NOT_FOUND
+                : HttpStatus.OK;
+        return new ResponseEntity<>(response, status);
+    }
+}
@@ -0,0 +1,15 @@
+package vn.vnpay.demo1_16092024.bean.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentQuery {
+
+    private String bankCode;
+
+    private String tokenKey;
+}
@@ -1,64 +1,84 @@
 package vn.vnpay.demo1_16092024.bean.dto.request;
 
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import vn.vnpay.demo1_16092024.bean.utils.LogMaskingUtils;
 
 @Data
 public class PaymentRequest {
 
-    @NotBlank
     private String tokenKey;
 
-    @NotBlank
     private String apiID;
 
-    @NotBlank
-    @Pattern(regexp = "\\d{10}", message = "Mobile number must be 10 digits")
     private String mobile;
 
-    @NotBlank
     private String bankCode;
 
-    @NotBlank
     private String accountNo;
 
-    @NotBlank
-    @Pattern(regexp = "\\d{14}", message = "PayDate must be in the format yyyyMMddHHmmss")
     private String payDate;
 
-    @NotBlank
     private String additionalData;
 
-    @NotNull
     private Integer debitAmount;
 
-    @NotBlank
     private String respCode;
 
-    @NotBlank
     private String respDesc;
 
-    @NotBlank
     private String traceTransfer;
 
-    @NotBlank
     private String messageType;
 
-    @NotBlank
     private String checkSum;
 
-    @NotBlank
     private String orderCode;
 
-    @NotBlank
     private String userName;
 
-    @NotBlank
     private String realAmount;
 
-    @NotBlank
     private String promotionCode;
 
+    /**
+     * Clears every field so the instance can be reused for the next record of a stream.
+     */
+    public void reset() {
+        tokenKey = null;
+        apiID = null;
+        mobile = null;
+        bankCode = null;
+        accountNo = null;
+        payDate = null;
+        additionalData = null;
+        debitAmount = null;
+        respCode = null;
+        respDesc = null;
+        traceTransfer = null;
+        messageType = null;
+        checkSum = null;
+        orderCode = null;
+        userName = null;
+        realAmount = null;
+        promotionCode = null;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentRequest(tokenKey=" + tokenKey
+                + ", apiID=" + apiID
+                + ", mobile=" + LogMaskingUtils.maskMobile(mobile)
+                + ", bankCode=" + bankCode
+                + ", accountNo=" + LogMaskingUtils.maskAccountNo(accountNo)
+                + ", payDate=" + payDate
+                + ", debitAmount=" + debitAmount
+                + ", respCode=" + respCode
+                + ", traceTransfer=" + traceTransfer
+                + ", messageType=" + messageType
+                + ", checkSum=" + LogMaskingUtils.maskSecret(checkSum)
+                + ", orderCode=" + orderCode
+                + ", realAmount=" + realAmount
+                + ", promotionCode=" + promotionCode + ")";
+    }
+
 }
@@ -0,0 +1,16 @@
+package vn.vnpay.demo1_16092024.bean.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentQueryResponse {
+    private String code;
+    private String message;
+    private String bankCode;
+    private String tokenKey;
+    private PaymentSummary payment;
+}
@@ -1,8 +1,11 @@
 package vn.vnpay.demo1_16092024.bean.dto.response;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.vnpay.demo1_16092024.bean.utils.LogMaskingUtils;
 
 @Data
+@NoArgsConstructor
 public class PaymentResponse {
     private String code;
     private String message;
@@ -17,4 +20,13 @@ public class PaymentResponse {
         this.responseTime = responseTime;
         this.checkSum = checkSum;
     }
+
+    @Override
+    public String toString() {
+        return "PaymentResponse(code=" + code
+                + ", message=" + message
+                + ", responseId=" + responseId
+                + ", responseTime=" + responseTime
+                + ", checkSum=" + LogMaskingUtils.maskSecret(checkSum) + ")";
+    }
 }
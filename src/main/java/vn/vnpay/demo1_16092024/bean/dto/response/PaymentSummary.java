@@ -0,0 +1,43 @@
+package vn.vnpay.demo1_16092024.bean.dto.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.LogMaskingUtils;
+
+/**
+ * What a payment lookup returns of a stored request: the transaction, without the payer's
+ * mobile, user name or additional data, with the account number masked and without the
+ * checksum.
+ */
+@Data
+@NoArgsConstructor
+public class PaymentSummary {
+    private String apiID;
+    private String accountNo;
+    private String payDate;
+    private Integer debitAmount;
+    private String realAmount;
+    private String respCode;
+    private String respDesc;
+    private String traceTransfer;
+    private String messageType;
+    private String orderCode;
+    private String promotionCode;
+
+    public static PaymentSummary of(PaymentRequest payment) {
+        PaymentSummary summary = new PaymentSummary();
+        summary.apiID = payment.getApiID();
+        summary.accountNo = LogMaskingUtils.maskAccountNo(payment.getAccountNo());
+        summary.payDate = payment.getPayDate();
+        summary.debitAmount = payment.getDebitAmount();
+        summary.realAmount = payment.getRealAmount();
+        summary.respCode = payment.getRespCode();
+        summary.respDesc = payment.getRespDesc();
+        summary.traceTransfer = payment.getTraceTransfer();
+        summary.messageType = payment.getMessageType();
+        summary.orderCode = payment.getOrderCode();
+        summary.promotionCode = payment.getPromotionCode();
+        return summary;
+    }
+}
@@ -0,0 +1,15 @@
+package vn.vnpay.demo1_16092024.bean.exception;
+
+public class BatchSizeExceededException extends RuntimeException {
+
+    private final int maxSize;
+
+    public BatchSizeExceededException(int size, int maxSize) {
+        super(String.format("Batch of %d requests exceeds the maximum of %d", size, maxSize));
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,17 @@
+package vn.vnpay.demo1_16092024.bean.exception;
+
+import java.io.IOException;
+
+public class JournalIntegrityException extends IOException {
+
+    private final long position;
+
+    public JournalIntegrityException(String message, long position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,8 @@
+package vn.vnpay.demo1_16092024.bean.exception;
+
+public class RedisUnavailableException extends RuntimeException {
+
+    public RedisUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,272 @@
+package vn.vnpay.demo1_16092024.bean.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentResponseTemplates;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+import vn.vnpay.demo1_16092024.bean.config.PreFilterConfig;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.constant.PreFilterRejection;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentMetrics;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentUtils;
+import vn.vnpay.demo1_16092024.bean.utils.ResponseIdGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Answers {@code POST /api/process} bodies that can never succeed before the request reaches
+ * data binding, validation or a bulkhead: bodies over {@link PreFilterConfig#getMaxBodySize()},
+ * bodies that are not a JSON object, and requests whose {@code bankCode} is missing or not
+ * registered. Only the top level of the body is scanned, and only up to {@code bankCode}.
+ *
+ * <p>Requests that pass go on with the body already read, so it is not read from the socket
+ * twice. Batch and stream endpoints are not covered; their bodies are not held in memory.
+ */
+@Component
+@Profile("!reactive")
+public class PaymentPreFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentPreFilter.class);
+
+    static final String PROCESS_PATH = "/api/process";
+
+    @Autowired
+    private PreFilterConfig config;
+
+    @Autowired
+    private BankRegistry bankRegistry;
+
+    @Autowired
+    private ResponseIdGenerator responseIdGenerator;
+
+    @Autowired
+    private PaymentMetrics paymentMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JsonFactory jsonFactory;
+    private PaymentResponseTemplates templates;
+    private final Counter[] rejections = new Counter[PreFilterRejection.values().length];
+
+    @PostConstruct
+    public void init() {
+        jsonFactory = objectMapper.getFactory();
+        templates = new PaymentResponseTemplates(objectMapper);
+        for (PreFilterRejection rejection : PreFilterRejection.values()) {
+            rejections[rejection.ordinal()] = Counter.builder("payment.prefilter.rejected")
+                    .description("Payment requests answered by the pre-filter")
+                    .tag("reason", rejection.getTag())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled()
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !PROCESS_PATH.equals(request.getServletPath())
+                || !isJson(request.getContentType());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        int maxBodySize = config.getMaxBodySize();
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxBodySize) {
+            reject(response, PreFilterRejection.TOO_LARGE, null, startNanos);
+            return;
+        }
+        byte[] body;
+        try (InputStream in = request.getInputStream()) {
+            // one byte over the limit is enough to tell a chunked body is too large
+            body = in.readNBytes(contentLength >= 0 ? (int) contentLength : maxBodySize + 1);
+        }
+        if (body.length > maxBodySize || body.length == 0) {
+            reject(response, body.length == 0 ? PreFilterRejection.EMPTY : PreFilterRejection.TOO_LARGE,
+                    null, startNanos);
+            return;
+        }
+        PreFilterRejection rejection;
+        String bankCode = null;
+        try {
+            bankCode = findBankCode(body);
+            rejection = bankCode == null || bankCode.isBlank() ? PreFilterRejection.MISSING_BANK_CODE
+                    : bankRegistry.find(bankCode) == null ? PreFilterRejection.UNKNOWN_BANK
+                    : null;
+        } catch (JsonProcessingException e) {
+            rejection = PreFilterRejection.MALFORMED;
+        }
+        if (rejection != null) {
+            reject(response, rejection, bankCode, startNanos);
+            return;
+        }
+        chain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    /**
+     * Returns the top-level {@code bankCode} of a JSON object, or {@code null} when the object
+     * has none. Scalars are read as text, as {@code PaymentRequestParser} reads them.
+     */
+    String findBankCode(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Payment request must be a JSON object");
+            }
+            String bankCode = FieldName.BANK_CODE.toString();
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                boolean found = bankCode.equals(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (!found) {
+                    parser.skipChildren();
+                } else if (value == JsonToken.VALUE_NULL) {
+                    return null;
+                } else if (value.isScalarValue()) {
+                    return parser.getText();
+                } else {
+                    throw new JsonParseException(parser, "Field " + bankCode + " must be a string");
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unexpected " + token + " in payment request");
+            }
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, PreFilterRejection rejection, String bankCode,
+                        long startNanos) throws IOException {
+        rejections[rejection.ordinal()].increment();
+        PaymentErrorCode errorCode = rejection.getErrorCode();
+        logger.debug("Payment request rejected before parsing: {}", rejection.getTag());
+        byte[] json = templates.write(new PaymentResponse(errorCode.getCode(), errorCode.getMessage(),
+                responseIdGenerator.nextId(), PaymentUtils.getCurrentTimestamp(), null));
+        response.setStatus(status(rejection).value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+        paymentMetrics.recordOutcome(bankCode, errorCode.getCode(), startNanos);
+    }
+
+    /**
+     * Unreadable bodies are client errors; a readable request with a bad bank code is answered
+     * 200 with its error code, as the controller does.
+     */
+    private static HttpStatus status(PreFilterRejection rejection) {
+        switch (rejection) {
+            case TOO_LARGE:
+                return HttpStatus.PAYLOAD_TOO_LARGE;
+            case EMPTY:
+            case MALFORMED:
+                return HttpStatus.BAD_REQUEST;
+            default:
+                return HttpStatus.OK;
+        }
+    }
+
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)
+                    || mediaType.getSubtype().endsWith("+json");
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Serves a body that was already read from the request.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public byte[] readAllBytes() {
+                    return in.readAllBytes();
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Cached payment body is read synchronously");
+                }
+            };
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
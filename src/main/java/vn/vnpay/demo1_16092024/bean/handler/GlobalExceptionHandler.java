@@ -4,21 +4,26 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.MethodArgumentNotValidException;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.controller.PaymentController;
+import vn.vnpay.demo1_16092024.bean.exception.BatchSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
 
-@ControllerAdvice
+/**
+ * Error bodies for the payment API. Scoped to its controllers so actuator endpoints keep their
+ * own error statuses.
+ */
+@ControllerAdvice(basePackageClasses = PaymentController.class)
 public class GlobalExceptionHandler {
 
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getFieldErrors().forEach(error ->
-                errors.put(error.getField(), error.getDefaultMessage())
-        );
-        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<Map<String, String>> handleBatchSizeExceeded(BatchSizeExceededException ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("code", PaymentErrorCode.INVALID_INPUT.getCode());
+        response.put("message", ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
     @ExceptionHandler(Exception.class)
@@ -0,0 +1,75 @@
+package vn.vnpay.demo1_16092024.bean.journal;
+
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+/**
+ * One accepted payment as read back from the {@link PaymentJournal}. {@link #getRequest()} is the
+ * record as stored in Redis and decodes with {@code PaymentCodecs#decode}.
+ */
+public final class JournalEntry {
+
+    private final long position;
+    private final long nextPosition;
+    private final long sequence;
+    private final long timestamp;
+    private final String bankCode;
+    private final String tokenKey;
+    private final byte[] request;
+    private final PaymentResponse response;
+    private final byte[] mac;
+
+    JournalEntry(long position, long nextPosition, long sequence, long timestamp, String bankCode, String tokenKey,
+                 byte[] request, PaymentResponse response, byte[] mac) {
+        this.position = position;
+        this.nextPosition = nextPosition;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.bankCode = bankCode;
+        this.tokenKey = tokenKey;
+        this.request = request;
+        this.response = response;
+        this.mac = mac;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getNextPosition() {
+        return nextPosition;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Time the entry was appended, in epoch milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    public String getTokenKey() {
+        return tokenKey;
+    }
+
+    public byte[] getRequest() {
+        return request;
+    }
+
+    public PaymentResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Link of this entry in the hash chain; the next entry's MAC covers it.
+     */
+    public byte[] getMac() {
+        return mac;
+    }
+}
@@ -0,0 +1,129 @@
+package vn.vnpay.demo1_16092024.bean.journal;
+
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Binary layout of one journal entry, all numbers big-endian:
+ * <pre>
+ * byte   version
+ * long   sequence, from 1
+ * long   timestamp, epoch milliseconds
+ * string bankCode, tokenKey
+ * int    request record length, then the record as stored in Redis
+ * string response code, message, responseId, responseTime, checkSum
+ * byte[32] HMAC-SHA256 over the previous entry's MAC and every byte above
+ * </pre>
+ * Strings are an unsigned short UTF-8 length and the bytes, with {@code 0xFFFF} for null.
+ */
+final class JournalFormat {
+
+    static final byte VERSION = 1;
+    static final int MAC_SIZE = 32;
+    static final byte[] GENESIS_MAC = new byte[MAC_SIZE];
+
+    private static final int SEQUENCE_OFFSET = 1;
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private JournalFormat() {
+    }
+
+    /**
+     * Encodes an entry with a zero sequence and MAC, both filled in by {@link #seal}.
+     */
+    static byte[] encode(long timestamp, String bankCode, String tokenKey, byte[] record, PaymentResponse response) {
+        byte[][] strings = {
+                bytes(bankCode), bytes(tokenKey),
+                bytes(response.getCode()), bytes(response.getMessage()), bytes(response.getResponseId()),
+                bytes(response.getResponseTime()), bytes(response.getCheckSum())
+        };
+        int size = 1 + Long.BYTES * 2 + Integer.BYTES + record.length + MAC_SIZE;
+        for (byte[] string : strings) {
+            size += Short.BYTES + (string != null ? string.length : 0);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size)
+                .put(VERSION)
+                .putLong(0)
+                .putLong(timestamp);
+        put(buffer, strings[0]);
+        put(buffer, strings[1]);
+        buffer.putInt(record.length).put(record);
+        for (int i = 2; i < strings.length; i++) {
+            put(buffer, strings[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Stamps {@code sequence} into an encoded entry and chains it to {@code previousMac}.
+     * Returns the entry's own MAC.
+     */
+    static byte[] seal(byte[] entry, long sequence, byte[] previousMac, HmacSha256Signer signer)
+            throws GeneralSecurityException {
+        ByteBuffer.wrap(entry).putLong(SEQUENCE_OFFSET, sequence);
+        byte[] mac = mac(entry, previousMac, signer);
+        System.arraycopy(mac, 0, entry, entry.length - MAC_SIZE, MAC_SIZE);
+        return mac;
+    }
+
+    static byte[] mac(byte[] entry, byte[] previousMac, HmacSha256Signer signer) throws GeneralSecurityException {
+        return signer.begin()
+                .update(previousMac, 0, MAC_SIZE)
+                .update(entry, 0, entry.length - MAC_SIZE)
+                .doFinal();
+    }
+
+    static JournalEntry decode(long position, long nextPosition, byte[] entry) {
+        ByteBuffer buffer = ByteBuffer.wrap(entry);
+        if (buffer.get() != VERSION) {
+            throw new IllegalArgumentException("Unknown journal entry version " + entry[0]);
+        }
+        long sequence = buffer.getLong();
+        long timestamp = buffer.getLong();
+        String bankCode = string(buffer);
+        String tokenKey = string(buffer);
+        byte[] record = new byte[buffer.getInt()];
+        buffer.get(record);
+        PaymentResponse response = new PaymentResponse(string(buffer), string(buffer), string(buffer),
+                string(buffer), string(buffer));
+        byte[] mac = new byte[MAC_SIZE];
+        buffer.get(mac);
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException(buffer.remaining() + " unexpected byte(s) after the journal entry MAC");
+        }
+        return new JournalEntry(position, nextPosition, sequence, timestamp, bankCode, tokenKey, record, response, mac);
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IllegalArgumentException("Journal field of " + bytes.length + " bytes is too long");
+        }
+        return bytes;
+    }
+
+    private static void put(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putShort((short) NULL_LENGTH);
+        } else {
+            buffer.putShort((short) string.length).put(string);
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,78 @@
+package vn.vnpay.demo1_16092024.bean.journal;
+
+import vn.vnpay.demo1_16092024.bean.exception.JournalIntegrityException;
+import vn.vnpay.demo1_16092024.bean.segment.MappedSegmentLog;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * Forward-only cursor over journal entries that checks the hash chain as it goes: every entry's
+ * MAC must cover the previous entry's MAC and its own bytes, and sequences must not skip. Not
+ * thread-safe; each consumer opens its own.
+ */
+public final class JournalReader implements Closeable {
+
+    private final MappedSegmentLog.Reader reader;
+    private final HmacSha256Signer signer;
+    private byte[] previousMac;
+    private long nextSequence;
+
+    /**
+     * @param previousMac MAC of the entry before the first one read, or {@code null} to take the
+     *                    first entry as the anchor of the chain without checking its own MAC
+     */
+    JournalReader(MappedSegmentLog.Reader reader, HmacSha256Signer signer, byte[] previousMac, long nextSequence) {
+        this.reader = reader;
+        this.signer = signer;
+        this.previousMac = previousMac;
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Returns the next entry, or {@code null} once the reader has caught up with the journal.
+     *
+     * @throws JournalIntegrityException if the entry is unreadable or breaks the hash chain
+     */
+    public JournalEntry next() throws IOException {
+        MappedSegmentLog.Record record = reader.next();
+        if (record == null) {
+            return null;
+        }
+        byte[] payload = record.getPayload();
+        JournalEntry entry;
+        try {
+            entry = JournalFormat.decode(record.getPosition(), record.getNextPosition(), payload);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new JournalIntegrityException("Unreadable journal entry: " + e.getMessage(), record.getPosition());
+        }
+        if (previousMac != null) {
+            if (entry.getSequence() != nextSequence) {
+                throw new JournalIntegrityException("Journal entry has sequence " + entry.getSequence()
+                        + ", expected " + nextSequence, entry.getPosition());
+            }
+            byte[] expected;
+            try {
+                expected = JournalFormat.mac(payload, previousMac, signer);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Cannot verify journal entry at position " + entry.getPosition(), e);
+            }
+            if (!MessageDigest.isEqual(expected, entry.getMac())) {
+                throw new JournalIntegrityException("Journal entry " + entry.getSequence()
+                        + " does not match the hash chain", entry.getPosition());
+            }
+        }
+        previousMac = entry.getMac();
+        nextSequence = entry.getSequence() + 1;
+        return entry;
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
@@ -0,0 +1,268 @@
+package vn.vnpay.demo1_16092024.bean.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.JournalConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.segment.MappedSegmentLog;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local, append-only record of every accepted payment: the request as stored in Redis and the
+ * signed response, one entry each in a {@link MappedSegmentLog}. Each entry's HMAC covers the
+ * previous entry's, so {@link JournalReader} reports an edited, dropped or reordered entry.
+ *
+ * <p>Appending only copies into the mapped segment. A background thread forces the segment to
+ * disk every {@code commitInterval}, so one fsync covers every entry appended meanwhile; with
+ * {@code awaitSync} it is also woken by each append and callers wait for their entry to be
+ * durable. Segments are never deleted here.
+ */
+@Service
+public class PaymentJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentJournal.class);
+
+    private static final String NAME = "payment";
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @Autowired
+    private JournalConfig config;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MappedSegmentLog log;
+    private HmacSha256Signer signer;
+    private byte[] previousMac;
+    private long sequence;
+    private volatile long syncedPosition;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Thread syncer;
+    private volatile boolean running;
+
+    private Counter written;
+    private Counter failed;
+    private Timer syncTimer;
+
+    @PostConstruct
+    public void start() throws IOException, GeneralSecurityException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (config.getKey() == null || config.getKey().isBlank()) {
+            throw new IllegalStateException("payment.journal.key must be set when the journal is enabled");
+        }
+        signer = new HmacSha256Signer(config.getKey());
+        Path directory = Paths.get(config.getDirectory());
+        log = MappedSegmentLog.open(directory, NAME, config.getSegmentSize());
+        recoverChain();
+        syncedPosition = log.writePosition();
+
+        written = Counter.builder("payment.journal.entries").tag("result", "written")
+                .description("Accepted payments through the journal").register(meterRegistry);
+        failed = Counter.builder("payment.journal.entries").tag("result", "failed")
+                .description("Accepted payments through the journal").register(meterRegistry);
+        syncTimer = Timer.builder("payment.journal.sync")
+                .description("Time to force journal entries to disk")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+        Gauge.builder("payment.journal.unsynced", this, journal -> journal.log.writePosition() - journal.syncedPosition)
+                .description("Journal bytes appended but not yet forced to disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        logger.info("Payment journal in {} continues at entry {}", directory.toAbsolutePath(), sequence + 1);
+
+        running = true;
+        syncer = new Thread(this::syncLoop, "payment-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (log == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(syncer);
+        syncer.join(TimeUnit.SECONDS.toMillis(5));
+        sync();
+        log.close();
+    }
+
+    public boolean isEnabled() {
+        return log != null;
+    }
+
+    /**
+     * Appends an accepted payment. The returned future completes once the entry is on disk when
+     * {@code awaitSync} is on, and right away otherwise. A failed append is logged and counted
+     * but never fails the payment, which Redis already holds.
+     *
+     * @param record the request as stored in Redis
+     */
+    public CompletableFuture<Void> append(PaymentRequest request, byte[] record, PaymentResponse response) {
+        if (log == null) {
+            return DONE;
+        }
+        try {
+            byte[] entry = JournalFormat.encode(System.currentTimeMillis(), request.getBankCode(),
+                    request.getTokenKey(), record, response);
+            Waiter waiter = append(entry);
+            written.increment();
+            if (waiter == null) {
+                return DONE;
+            }
+            LockSupport.unpark(syncer);
+            return waiter.durable();
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            failed.increment();
+            logger.error("Cannot journal payment for tokenKey: {}, bankCode: {}. Error: {}",
+                    request.getTokenKey(), request.getBankCode(), e.toString());
+            return DONE;
+        }
+    }
+
+    /**
+     * Reads the journal from its first entry. The chain is checked from the genesis entry while
+     * the first segment is still on disk, otherwise from the first entry that is.
+     */
+    public JournalReader reader() {
+        long start = requireLog().startPosition();
+        return start == 0
+                ? new JournalReader(log.reader(0), signer, JournalFormat.GENESIS_MAC, 1)
+                : new JournalReader(log.reader(start), signer, null, 0);
+    }
+
+    /**
+     * Resumes reading after {@code entry}, for replay from a checkpoint.
+     */
+    public JournalReader readerAfter(JournalEntry entry) {
+        return new JournalReader(requireLog().reader(entry.getNextPosition()), signer, entry.getMac(),
+                entry.getSequence() + 1);
+    }
+
+    private Waiter append(byte[] entry) throws IOException, GeneralSecurityException {
+        appendLock.lock();
+        try {
+            byte[] mac = JournalFormat.seal(entry, sequence + 1, previousMac, signer);
+            long end = log.append(entry);
+            sequence++;
+            previousMac = mac;
+            if (!config.isAwaitSync()) {
+                return null;
+            }
+            // queued under the lock, so waiters stay in position order
+            Waiter waiter = new Waiter(end, new CompletableFuture<>());
+            waiters.add(waiter);
+            return waiter;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        long intervalNanos = config.getCommitInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            sync();
+        }
+    }
+
+    /**
+     * Forces appended entries to disk and releases their waiters. When the force fails the
+     * waiters are released anyway, each counted as a failed entry: as with a failed append, the
+     * payment Redis already holds is not failed for it.
+     */
+    private void sync() {
+        long end = log.writePosition();
+        try {
+            if (end > syncedPosition) {
+                long startNanos = System.nanoTime();
+                log.force();
+                syncTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                syncedPosition = end;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Payment journal sync failed", e);
+            Waiter waiter;
+            while ((waiter = waiters.peek()) != null && waiter.position() <= end) {
+                waiters.poll();
+                failed.increment();
+                waiter.durable().complete(null);
+            }
+            return;
+        }
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null && waiter.position() <= syncedPosition) {
+            waiters.poll();
+            waiter.durable().complete(null);
+        }
+    }
+
+    /**
+     * Picks the chain up after the last entry on disk. It is in the last segment, or in the one
+     * before when a crash came between a rotation and the first append to the new segment.
+     */
+    private void recoverChain() throws IOException {
+        previousMac = JournalFormat.GENESIS_MAC;
+        sequence = 0;
+        long end = log.writePosition();
+        long segmentStart = end - Math.floorMod(end, (long) log.getSegmentSize());
+        if (!recoverFrom(segmentStart) && segmentStart > log.startPosition()) {
+            recoverFrom(segmentStart - log.getSegmentSize());
+        }
+    }
+
+    private boolean recoverFrom(long position) throws IOException {
+        MappedSegmentLog.Record last = null;
+        try (MappedSegmentLog.Reader reader = log.reader(position)) {
+            MappedSegmentLog.Record record;
+            while ((record = reader.next()) != null) {
+                last = record;
+            }
+        }
+        if (last == null) {
+            return false;
+        }
+        JournalEntry entry = JournalFormat.decode(last.getPosition(), last.getNextPosition(), last.getPayload());
+        previousMac = entry.getMac();
+        sequence = entry.getSequence();
+        return true;
+    }
+
+    private MappedSegmentLog requireLog() {
+        if (log == null) {
+            throw new IllegalStateException("Payment journal is disabled");
+        }
+        return log;
+    }
+
+    private record Waiter(long position, CompletableFuture<Void> durable) {
+    }
+}
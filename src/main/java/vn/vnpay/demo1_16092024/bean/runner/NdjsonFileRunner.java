@@ -0,0 +1,60 @@
+package vn.vnpay.demo1_16092024.bean.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.config.NdjsonConfig;
+import vn.vnpay.demo1_16092024.bean.service.NdjsonPaymentProcessor;
+
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Offline mode: processes the NDJSON file named by {@code payment.ndjson.input} and exits.
+ * Typically run with {@code --spring.main.web-application-type=none}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payment.ndjson", name = "input")
+public class NdjsonFileRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonFileRunner.class);
+
+    @Autowired
+    private NdjsonConfig config;
+
+    @Autowired
+    private NdjsonPaymentProcessor processor;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long startNanos = System.nanoTime();
+        long count;
+        try (InputStream in = Files.newInputStream(Path.of(config.getInput()))) {
+            if (config.getOutput() != null) {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(config.getOutput())))) {
+                    count = processor.process(in, out);
+                }
+            } else {
+                // flushed but not closed: System.out is still needed for logging and shutdown
+                OutputStream out = new BufferedOutputStream(System.out);
+                count = processor.process(in, out);
+                out.flush();
+            }
+        }
+        logger.info("Processed {} record(s) from {} in {} ms", count, config.getInput(),
+                (System.nanoTime() - startNanos) / 1_000_000);
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,141 @@
+package vn.vnpay.demo1_16092024.bean.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import vn.vnpay.demo1_16092024.bean.codec.ParsedPaymentRequest;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentCodecs;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentRequestParser;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+import vn.vnpay.demo1_16092024.bean.config.RegisteredBank;
+import vn.vnpay.demo1_16092024.bean.config.WarmupConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.service.IPaymentService;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentRequestValidator;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentUtils;
+import vn.vnpay.demo1_16092024.bean.utils.RedisPipeline;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs sample requests of every bank through parsing, validation, HMAC signing and the storage
+ * codec, and makes a round trip to every Redis node, so the first real requests do not pay for
+ * class loading, JIT compilation and connection setup. Runners finish before the application
+ * reports ready, so readiness waits for this, bounded by {@code payment.warmup.timeout}.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    @Autowired
+    private WarmupConfig config;
+
+    @Autowired
+    private BankRegistry bankRegistry;
+
+    @Autowired
+    private IPaymentService paymentService;
+
+    @Autowired
+    private PaymentRequestValidator paymentRequestValidator;
+
+    @Autowired
+    private PaymentCodecs paymentCodecs;
+
+    @Autowired
+    private RedisPipeline redisPipeline;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private PaymentRequestParser parser;
+
+    @PostConstruct
+    public void init() {
+        parser = new PaymentRequestParser(objectMapper.getFactory());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + config.getTimeout().toNanos();
+        CompletableFuture<Void> redis = redisPipeline.ping();
+
+        int samples = 0;
+        for (String bankCode : bankRegistry.getBankCodes()) {
+            RegisteredBank bank = bankRegistry.find(bankCode);
+            if (bank == null) {
+                continue;
+            }
+            byte[] body = objectMapper.writeValueAsBytes(sampleRequest(bank));
+            // one encode is enough to get a record to decode, and keeps the record size meter clean
+            byte[] record = paymentCodecs.encode(parser.parse(body));
+            for (int i = 0; i < config.getIterations() && System.nanoTime() < deadline; i++) {
+                exercise(body, record, bank);
+                samples++;
+            }
+        }
+
+        String redisState = "reachable";
+        try {
+            redis.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            redisState = "unreachable (" + e.getCause() + ")";
+        } catch (TimeoutException e) {
+            redisState = "not answering yet";
+        }
+        logger.info("Warm-up ran {} sample request(s) for {} bank(s) in {} ms, Redis {}", samples,
+                bankRegistry.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), redisState);
+    }
+
+    private void exercise(byte[] body, byte[] record, RegisteredBank bank) throws Exception {
+        ParsedPaymentRequest request = parser.parse(body);
+        paymentRequestValidator.validate(request, bank.getValidationRules());
+        String checkSum = paymentService.calculateRequestCheckSum(request, bank.getSigner());
+        if (!checkSum.equals(request.getCheckSum())) {
+            throw new IllegalStateException("Warm-up request of bank " + bank.getBankCode() + " failed its own checksum");
+        }
+        paymentCodecs.decode(record);
+        PaymentErrorCode code = PaymentErrorCode.SUCCESS;
+        String responseTime = PaymentUtils.getCurrentTimestamp();
+        objectMapper.writeValueAsBytes(new PaymentResponse(code.getCode(), code.getMessage(), "0", responseTime,
+                paymentService.calculateResponseCheckSum(code.getCode(), code.getMessage(), "0", responseTime,
+                        bank.getSigner())));
+    }
+
+    private PaymentRequest sampleRequest(RegisteredBank bank) throws Exception {
+        PaymentRequest request = new PaymentRequest();
+        request.setTokenKey("warmup");
+        request.setApiID("restPayment");
+        request.setMobile("0912345678");
+        request.setBankCode(bank.getBankCode());
+        request.setAccountNo("0001100014211002");
+        request.setPayDate("20240930103025");
+        request.setAdditionalData("{}");
+        request.setDebitAmount(11200);
+        request.setRespCode("00");
+        request.setRespDesc("SUCCESS");
+        request.setTraceTransfer("FT19070878181");
+        request.setMessageType("1");
+        request.setOrderCode("FT19070878181");
+        request.setUserName("warmup");
+        request.setRealAmount("11200");
+        request.setPromotionCode("NONE");
+        request.setCheckSum(paymentService.calculateRequestCheckSum(request, bank.getSigner()));
+        return request;
+    }
+}
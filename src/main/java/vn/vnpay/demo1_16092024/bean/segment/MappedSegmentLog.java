@@ -0,0 +1,342 @@
+package vn.vnpay.demo1_16092024.bean.segment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log over pre-allocated, memory-mapped segment files named
+ * {@code <prefix>-<base position>.seg}. Each record is framed as {@code int length},
+ * {@code int crc32c} and the payload; a zero length marks the end of the written part of a
+ * segment. Positions are global byte offsets, so a position taken from {@link Record} stays
+ * valid across rotations.
+ *
+ * <p>Appends are serialized by a lock rather than a monitor, so a virtual thread rotating a
+ * segment does not pin its carrier; readers run concurrently, never see past {@link #writePosition()}
+ * and check each record's checksum. New segments are filled in a temporary file and renamed into
+ * place, so a crash during allocation leaves no partial segment behind. On open the last segment
+ * is scanned and the log resumes after its last intact record, dropping a torn tail.
+ */
+public final class MappedSegmentLog implements Closeable {
+
+    public static final int RECORD_HEADER_SIZE = 8;
+
+    private static final String SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int ZERO_FILL_CHUNK = 1 << 20;
+
+    private final Path directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final CRC32C crc = new CRC32C();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private MappedByteBuffer current;
+    private long currentBase;
+    private volatile long writePosition;
+
+    private MappedSegmentLog(Path directory, String prefix, int segmentSize) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+    }
+
+    public static MappedSegmentLog open(Path directory, String prefix, int segmentSize) throws IOException {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must exceed the record header, was " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        MappedSegmentLog log = new MappedSegmentLog(directory, prefix, segmentSize);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "-*" + SUFFIX + TEMP_SUFFIX)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "-*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                log.segments.put(Long.parseLong(name.substring(prefix.length() + 1, name.length() - SUFFIX.length())), file);
+            }
+        }
+        if (log.segments.isEmpty()) {
+            log.map(0);
+        } else {
+            Map.Entry<Long, Path> last = log.segments.lastEntry();
+            log.currentBase = last.getKey();
+            log.current = mapExisting(last.getValue(), segmentSize, true);
+            log.writePosition = log.currentBase + log.recover(log.current);
+        }
+        return log;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Largest payload a single record can carry.
+     */
+    public int maxPayloadSize() {
+        return segmentSize - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * Appends one record and returns the position just after it. The record is visible to
+     * readers on return but only durable once {@link #force()} has run.
+     */
+    public long append(byte[] payload, int offset, int length) throws IOException {
+        if (length <= 0 || length > maxPayloadSize()) {
+            throw new IllegalArgumentException("Record payload must be 1.." + maxPayloadSize() + " bytes, was " + length);
+        }
+        lock.lock();
+        try {
+            int position = (int) (writePosition - currentBase);
+            if (position + RECORD_HEADER_SIZE + length > segmentSize) {
+                rotate();
+                position = 0;
+            }
+            crc.reset();
+            crc.update(payload, offset, length);
+            // payload and checksum first, length last, so a torn write reads as the end of the log
+            current.putInt(position + 4, (int) crc.getValue());
+            current.put(position + RECORD_HEADER_SIZE, payload, offset, length);
+            current.putInt(position, length);
+            writePosition = currentBase + position + RECORD_HEADER_SIZE + length;
+            return writePosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long append(byte[] payload) throws IOException {
+        return append(payload, 0, payload.length);
+    }
+
+    public long writePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Position of the first record still on disk.
+     */
+    public long startPosition() {
+        return segments.firstKey();
+    }
+
+    /**
+     * Flushes appended records of the current segment to the storage device.
+     */
+    public void force() {
+        MappedByteBuffer segment;
+        lock.lock();
+        try {
+            segment = current;
+        } finally {
+            lock.unlock();
+        }
+        segment.force();
+    }
+
+    /**
+     * Deletes every segment that lies entirely before {@code position}. The current segment is
+     * always kept.
+     */
+    public void deleteBefore(long position) throws IOException {
+        for (Map.Entry<Long, Path> entry : segments.headMap(currentBase, false).entrySet()) {
+            if (entry.getKey() + segmentSize > position) {
+                break;
+            }
+            Files.deleteIfExists(entry.getValue());
+            segments.remove(entry.getKey());
+        }
+    }
+
+    /**
+     * Returns a reader starting at {@code position}, which must be a record boundary returned by
+     * {@link #append} or {@link Record#getNextPosition()}, or {@link #startPosition()}.
+     */
+    public Reader reader(long position) {
+        return new Reader(position);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            current.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rotate() throws IOException {
+        current.force();
+        map(currentBase + segmentSize);
+    }
+
+    private void map(long base) throws IOException {
+        Path file = directory.resolve(String.format("%s-%020d%s", prefix, base, SUFFIX));
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            zeroFill(channel, 0, segmentSize);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        current = mapExisting(file, segmentSize, false);
+        currentBase = base;
+        writePosition = base;
+        segments.put(base, file);
+    }
+
+    /**
+     * Maps a segment. A short last segment, as left by a crash while an older version allocated
+     * it in place, holds only zeros past its written records and is filled up to size.
+     */
+    private static MappedByteBuffer mapExisting(Path file, int segmentSize, boolean last) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (last && size < segmentSize) {
+                zeroFill(channel, size, segmentSize);
+            } else if (size != segmentSize) {
+                throw new IOException("Segment " + file + " is " + size + " bytes, expected " + segmentSize);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    // write real zeros so a full disk fails here instead of on a later page fault
+    private static void zeroFill(FileChannel channel, long from, int segmentSize) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(Math.min(ZERO_FILL_CHUNK, segmentSize));
+        for (long written = from; written < segmentSize; ) {
+            zeros.clear().limit((int) Math.min(zeros.capacity(), segmentSize - written));
+            written += channel.write(zeros, written);
+        }
+        channel.force(true);
+    }
+
+    private int recover(ByteBuffer segment) {
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= segmentSize) {
+            int length = segment.getInt(position);
+            if (length <= 0 || length > segmentSize - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            crc.reset();
+            crc.update(segment.slice(position + RECORD_HEADER_SIZE, length));
+            if ((int) crc.getValue() != segment.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        if (position + RECORD_HEADER_SIZE <= segmentSize) {
+            segment.putInt(position, 0);
+        }
+        return position;
+    }
+
+    public static final class Record {
+
+        private final long position;
+        private final long nextPosition;
+        private final byte[] payload;
+
+        private Record(long position, long nextPosition, byte[] payload) {
+            this.position = position;
+            this.nextPosition = nextPosition;
+            this.payload = payload;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public long getNextPosition() {
+            return nextPosition;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Forward-only cursor. Not thread-safe; each consumer opens its own.
+     */
+    public final class Reader implements Closeable {
+
+        private final CRC32C crc = new CRC32C();
+    private final ReentrantLock lock = new ReentrantLock();
+        private long position;
+        private long mappedBase = -1;
+        private ByteBuffer mapped;
+
+        private Reader(long position) {
+            this.position = position;
+        }
+
+        public long position() {
+            return position;
+        }
+
+        /**
+         * Returns the next record, or {@code null} once the reader has caught up with the writer.
+         */
+        public Record next() throws IOException {
+            while (position < writePosition) {
+                long base = position - Math.floorMod(position, (long) segmentSize);
+                int offset = (int) (position - base);
+                if (offset + RECORD_HEADER_SIZE > segmentSize || segment(base).getInt(offset) == 0) {
+                    position = base + segmentSize;
+                    continue;
+                }
+                int length = mapped.getInt(offset);
+                if (length < 0 || length > segmentSize - offset - RECORD_HEADER_SIZE) {
+                    throw new IOException("Corrupt record length " + length + " at position " + position);
+                }
+                byte[] payload = new byte[length];
+                mapped.get(offset + RECORD_HEADER_SIZE, payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != mapped.getInt(offset + 4)) {
+                    throw new IOException("Corrupt record checksum at position " + position);
+                }
+                long recordPosition = position;
+                position += RECORD_HEADER_SIZE + length;
+                return new Record(recordPosition, position, payload);
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            mapped = null;
+        }
+
+        private ByteBuffer segment(long base) throws IOException {
+            if (base != mappedBase) {
+                Path file = segments.get(base);
+                if (file == null) {
+                    throw new IOException("Segment at position " + base + " has been deleted");
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+                }
+                mappedBase = base;
+            }
+            return mapped;
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import vn.vnpay.demo1_16092024.bean.codec.ParsedPaymentRequest;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+import vn.vnpay.demo1_16092024.bean.config.BatchConfig;
+import vn.vnpay.demo1_16092024.bean.config.PaymentBulkheads;
+import vn.vnpay.demo1_16092024.bean.config.PaymentExecutors;
+import vn.vnpay.demo1_16092024.bean.config.QueryConfig;
+import vn.vnpay.demo1_16092024.bean.config.RegisteredBank;
+import vn.vnpay.demo1_16092024.bean.constant.AdmissionResult;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentStage;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentQuery;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentQueryResponse;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentSummary;
+import vn.vnpay.demo1_16092024.bean.exception.BatchSizeExceededException;
+import vn.vnpay.demo1_16092024.bean.journal.PaymentJournal;
+import vn.vnpay.demo1_16092024.bean.utils.Bulkhead;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+import vn.vnpay.demo1_16092024.bean.utils.LogMaskingUtils;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentMetrics;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentUtils;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentRequestLogger;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentRequestValidator;
+import vn.vnpay.demo1_16092024.bean.utils.ResponseIdGenerator;
+import vn.vnpay.demo1_16092024.bean.utils.ValidationResult;
+import vn.vnpay.demo1_16092024.bean.utils.ValidationRules;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * Validation, bank lookup, checksum and response-signing stages shared by the servlet and
+ * reactive payment pipelines. Subclasses only decide how an accepted request is persisted.
+ */
+public abstract class AbstractPaymentService implements IPaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractPaymentService.class);
+
+    @Autowired
+    protected PaymentRequestValidator paymentRequestValidator;
+
+    @Autowired
+    protected BankRegistry bankRegistry;
+
+    @Autowired
+    protected IdempotencyGuard idempotencyGuard;
+
+    @Autowired
+    protected PaymentRequestLogger paymentRequestLogger;
+
+    @Autowired
+    protected PaymentMetrics paymentMetrics;
+
+    @Autowired
+    protected PaymentExecutors paymentExecutors;
+
+    @Autowired
+    protected PaymentBulkheads paymentBulkheads;
+
+    @Autowired
+    protected BatchConfig batchConfig;
+
+    @Autowired
+    protected QueryConfig queryConfig;
+
+    @Autowired
+    protected PaymentRecordCache paymentRecordCache;
+
+    @Autowired
+    protected ResponseIdGenerator responseIdGenerator;
+
+    @Autowired
+    protected PaymentJournal paymentJournal;
+
+    /**
+     * Stores a verified request and builds its response. Called at most once per duplicate
+     * window for the same bankCode/tokenKey/traceTransfer.
+     */
+    protected abstract CompletableFuture<PaymentResponse> persistPayment(PaymentRequest request, RegisteredBank bank);
+
+    @Override
+    public PaymentResponse processPayment(PaymentRequest request) {
+        return processPaymentAsync(request).join();
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request) {
+        long startNanos = System.nanoTime();
+        RegisteredBank bank = findBank(request);
+        if (!admit(bank)) {
+            PaymentResponse shed = buildErrorResponse(PaymentErrorCode.TOO_MANY_REQUESTS);
+            completeRequest(request, shed, null, startNanos);
+            return CompletableFuture.completedFuture(shed);
+        }
+        try {
+            return isolate(request, bank)
+                    .whenComplete((result, error) -> {
+                        completeRequest(request, result, error, startNanos);
+                        release(bank);
+                    });
+        } catch (RuntimeException e) {
+            release(bank);
+            throw e;
+        }
+    }
+
+    /**
+     * Verifies on the verification pool, as a batch does, rather than in the bank's bulkhead:
+     * a stream window wider than the tier's queue would otherwise get records answered 07.
+     */
+    @Override
+    public CompletableFuture<PaymentResponse> processStreamedPaymentAsync(PaymentRequest request) {
+        long startNanos = System.nanoTime();
+        RegisteredBank bank = findBank(request);
+        return CompletableFuture.supplyAsync(() -> verifyRequest(request, bank), paymentExecutors.getVerificationPool())
+                .thenCompose(verification -> accept(request, bank, verification))
+                .whenComplete((result, error) -> completeRequest(request, result, error, startNanos));
+    }
+
+    private CompletableFuture<PaymentResponse> isolate(PaymentRequest request, RegisteredBank bank) {
+        Bulkhead bulkhead = paymentBulkheads.forBank(bank);
+        return bulkhead != null
+                ? bulkhead.execute(() -> verifyAndAccept(request, bank),
+                        () -> buildErrorResponse(PaymentErrorCode.PARTNER_BUSY))
+                : verifyAndAccept(request, bank);
+    }
+
+    private CompletableFuture<PaymentResponse> verifyAndAccept(PaymentRequest request, RegisteredBank bank) {
+        return accept(request, bank, verifyRequest(request, bank));
+    }
+
+    @Override
+    public List<PaymentResponse> processBatch(List<PaymentRequest> requests) {
+        return processBatchAsync(requests).join();
+    }
+
+    /**
+     * Verifies every item in parallel on the verification pool, then hands all accepted items
+     * to persistence in one pass so their Redis commands share pipelined flushes. Responses
+     * keep the request order and a failing item never fails the rest of the batch.
+     */
+    @Override
+    public CompletableFuture<List<PaymentResponse>> processBatchAsync(List<PaymentRequest> requests) {
+        int size = requests.size();
+        if (size > batchConfig.getMaxSize()) {
+            throw new BatchSizeExceededException(size, batchConfig.getMaxSize());
+        }
+        long startNanos = System.nanoTime();
+        RegisteredBank[] banks = new RegisteredBank[size];
+        PaymentErrorCode[] verifications = new PaymentErrorCode[size];
+        boolean[] admitted = new boolean[size];
+        return CompletableFuture.runAsync(() -> IntStream.range(0, size).parallel().forEach(i -> {
+                    PaymentRequest request = requests.get(i);
+                    if (request == null) {
+                        verifications[i] = PaymentErrorCode.INVALID_INPUT;
+                        return;
+                    }
+                    banks[i] = findBank(request);
+                    admitted[i] = admit(banks[i]);
+                    verifications[i] = admitted[i]
+                            ? verifyRequest(request, banks[i])
+                            : PaymentErrorCode.TOO_MANY_REQUESTS;
+                }), paymentExecutors.getVerificationPool())
+                .thenCompose(verified -> {
+                    List<CompletableFuture<PaymentResponse>> responses = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        PaymentRequest request = requests.get(i);
+                        RegisteredBank bank = admitted[i] ? banks[i] : null;
+                        responses.add(request == null
+                                ? CompletableFuture.completedFuture(buildErrorResponse(verifications[i]))
+                                : accept(request, banks[i], verifications[i])
+                                        .exceptionally(error -> {
+                                            logger.error("Batch item failed for tokenKey: {}. Error: {}", request.getTokenKey(), error.toString());
+                                            return buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR);
+                                        })
+                                        .whenComplete((response, error) -> {
+                                            completeRequest(request, response, error, startNanos);
+                                            release(bank);
+                                        }));
+                    }
+                    return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(done -> responses.stream().map(CompletableFuture::join).toList());
+                });
+    }
+
+    private CompletableFuture<PaymentResponse> accept(PaymentRequest request, RegisteredBank bank, PaymentErrorCode verification) {
+        if (verification != PaymentErrorCode.SUCCESS) {
+            return CompletableFuture.completedFuture(buildErrorResponse(verification));
+        }
+        String bankCode = request.getBankCode();
+        String tokenKey = request.getTokenKey();
+        return idempotencyGuard.execute(bank, request,
+                () -> persistPayment(request, bank)
+                        .whenComplete((response, error) -> paymentRecordCache.invalidate(bankCode, tokenKey)),
+                () -> buildErrorResponse(PaymentErrorCode.DUPLICATE_TRANSACTION));
+    }
+
+    @Override
+    public PaymentQueryResponse findPayment(String bankCode, String tokenKey) {
+        return findPaymentAsync(bankCode, tokenKey).join();
+    }
+
+    @Override
+    public CompletableFuture<PaymentQueryResponse> findPaymentAsync(String bankCode, String tokenKey) {
+        PaymentErrorCode check = checkQuery(bankCode, tokenKey);
+        if (check != PaymentErrorCode.SUCCESS) {
+            return CompletableFuture.completedFuture(buildQueryResponse(check, bankCode, tokenKey, null));
+        }
+        return paymentRecordCache.find(bankCode, tokenKey)
+                .handle((payment, error) -> queryResult(bankCode, tokenKey, payment, error));
+    }
+
+    @Override
+    public List<PaymentQueryResponse> findPayments(List<PaymentQuery> queries) {
+        return findPaymentsAsync(queries).join();
+    }
+
+    /**
+     * Looks up every query at once; responses keep the query order.
+     */
+    @Override
+    public CompletableFuture<List<PaymentQueryResponse>> findPaymentsAsync(List<PaymentQuery> queries) {
+        int size = queries.size();
+        if (size > queryConfig.getMaxKeys()) {
+            throw new BatchSizeExceededException(size, queryConfig.getMaxKeys());
+        }
+        PaymentErrorCode[] checks = new PaymentErrorCode[size];
+        List<PaymentRecordCache.Key> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            PaymentQuery query = queries.get(i);
+            checks[i] = query == null
+                    ? PaymentErrorCode.INVALID_INPUT
+                    : checkQuery(query.getBankCode(), query.getTokenKey());
+            if (checks[i] == PaymentErrorCode.SUCCESS) {
+                keys.add(new PaymentRecordCache.Key(query.getBankCode(), query.getTokenKey()));
+            }
+        }
+        return paymentRecordCache.findAll(keys).handle((lookup, error) -> {
+            List<PaymentQueryResponse> responses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                PaymentQuery query = queries.get(i);
+                if (query == null) {
+                    responses.add(buildQueryResponse(checks[i], null, null, null));
+                } else if (checks[i] != PaymentErrorCode.SUCCESS) {
+                    responses.add(buildQueryResponse(checks[i], query.getBankCode(), query.getTokenKey(), null));
+                } else if (lookup == null) {
+                    responses.add(queryResult(query.getBankCode(), query.getTokenKey(), null, error));
+                } else {
+                    PaymentRecordCache.Key key = new PaymentRecordCache.Key(query.getBankCode(), query.getTokenKey());
+                    responses.add(lookup.unreadable().contains(key)
+                            ? buildQueryResponse(PaymentErrorCode.SYSTEM_ERROR, key.bankCode(), key.tokenKey(), null)
+                            : queryResult(key.bankCode(), key.tokenKey(), lookup.found().get(key), null));
+                }
+            }
+            return responses;
+        });
+    }
+
+    private PaymentErrorCode checkQuery(String bankCode, String tokenKey) {
+        if (bankCode == null || bankCode.isBlank() || tokenKey == null || tokenKey.isBlank()) {
+            return PaymentErrorCode.INVALID_INPUT;
+        }
+        return bankRegistry.find(bankCode) != null ? PaymentErrorCode.SUCCESS : PaymentErrorCode.BANK_CODE_NOT_FOUND;
+    }
+
+    private PaymentQueryResponse queryResult(String bankCode, String tokenKey, PaymentRequest payment, Throwable error) {
+        if (error != null) {
+            logger.error("Payment lookup failed for bankCode: {}, tokenKey: {}. Error: {}", bankCode, tokenKey, error.toString());
+            return buildQueryResponse(PaymentErrorCode.SYSTEM_ERROR, bankCode, tokenKey, null);
+        }
+        return payment != null
+                ? buildQueryResponse(PaymentErrorCode.SUCCESS, bankCode, tokenKey, payment)
+                : buildQueryResponse(PaymentErrorCode.TRANSACTION_NOT_FOUND, bankCode, tokenKey, null);
+    }
+
+    private PaymentQueryResponse buildQueryResponse(PaymentErrorCode code, String bankCode, String tokenKey, PaymentRequest payment) {
+        return new PaymentQueryResponse(code.getCode(), code.getMessage(), bankCode, tokenKey,
+                payment != null ? PaymentSummary.of(payment) : null);
+    }
+
+    /**
+     * Applies the bank's rate and concurrency limits before any checksum or Redis work. Unknown
+     * banks pass here and are rejected by verification. An admitted request must be
+     * {@linkplain #release released} once it completes.
+     */
+    private boolean admit(RegisteredBank bank) {
+        if (bank == null) {
+            return true;
+        }
+        AdmissionResult result = bank.getLimiter().tryAcquire();
+        paymentMetrics.recordAdmission(bank.getBankCode(), result);
+        if (result != AdmissionResult.ADMITTED) {
+            logger.debug("Request shed for bankCode: {}: {}", bank.getBankCode(), result.getTag());
+            return false;
+        }
+        return true;
+    }
+
+    private void release(RegisteredBank bank) {
+        if (bank != null) {
+            bank.getLimiter().release();
+        }
+    }
+
+    protected RegisteredBank findBank(PaymentRequest request) {
+        long startNanos = System.nanoTime();
+        RegisteredBank bank = bankRegistry.find(request.getBankCode());
+        paymentMetrics.recordStage(PaymentStage.BANK_LOOKUP, startNanos);
+        return bank;
+    }
+
+    /**
+     * Runs every check that precedes persistence and returns {@link PaymentErrorCode#SUCCESS}
+     * when the request may be stored, or the error code to answer with otherwise.
+     */
+    protected PaymentErrorCode verifyRequest(PaymentRequest request, RegisteredBank bank) {
+        long startNanos = System.nanoTime();
+        ValidationResult validation = paymentRequestValidator.validate(request,
+                bank != null ? bank.getValidationRules() : ValidationRules.DEFAULT);
+        startNanos = paymentMetrics.recordStage(PaymentStage.VALIDATION, startNanos);
+        if (!validation.isValid()) {
+            logger.debug("Validation failed for bankCode: {}, tokenKey: {}. Invalid fields: {}",
+                    request.getBankCode(), request.getTokenKey(), validation.getFailedFields());
+            return PaymentErrorCode.INVALID_INPUT;
+        }
+
+        if (bank == null) {
+            logger.debug("Bank code not found: {}", request.getBankCode());
+            return PaymentErrorCode.BANK_CODE_NOT_FOUND;
+        }
+
+        String calculatedCheckSum = calculateChecksum(request, bank);
+        paymentMetrics.recordStage(PaymentStage.CHECKSUM, startNanos);
+        if (!PaymentUtils.constantTimeEquals(calculatedCheckSum, request.getCheckSum())) {
+            logger.debug("Invalid checksum: {} for bankCode: {}, tokenKey: {}",
+                    LogMaskingUtils.maskSecret(request.getCheckSum()), request.getBankCode(), request.getTokenKey());
+            return PaymentErrorCode.INVALID_CHECKSUM;
+        }
+        return PaymentErrorCode.SUCCESS;
+    }
+
+    private String calculateChecksum(PaymentRequest request, RegisteredBank bank) {
+        try {
+            return signRequest(request, bank.getSigner());
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            logger.error("Error calculating checksum for request: {}", request, e);
+            return null;
+        }
+    }
+
+    @Override
+    public String calculateRequestCheckSum(PaymentRequest request, String privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        return signRequest(request, new HmacSha256Signer(privateKey));
+    }
+
+    @Override
+    public String calculateRequestCheckSum(PaymentRequest request, HmacSha256Signer signer) throws NoSuchAlgorithmException, InvalidKeyException {
+        return signRequest(request, signer);
+    }
+
+    private String signRequest(PaymentRequest request, HmacSha256Signer signer) throws NoSuchAlgorithmException, InvalidKeyException {
+        HmacSha256Signer.Session session = signer.begin();
+        update(session, request, FieldName.MOBILE, request.getMobile());
+        update(session, request, FieldName.BANK_CODE, request.getBankCode());
+        update(session, request, FieldName.ACCOUNT_NO, request.getAccountNo());
+        update(session, request, FieldName.PAY_DATE, request.getPayDate());
+        session.update(request.getDebitAmount());
+        update(session, request, FieldName.RESP_CODE, request.getRespCode());
+        update(session, request, FieldName.TRACE_TRANSFER, request.getTraceTransfer());
+        update(session, request, FieldName.MESSAGE_TYPE, request.getMessageType());
+        return session.doFinalHex();
+    }
+
+    private static void update(HmacSha256Signer.Session session, PaymentRequest request, FieldName field, String value) {
+        if (request instanceof ParsedPaymentRequest parsed) {
+            parsed.update(session, field, value);
+        } else {
+            session.update(value);
+        }
+    }
+
+    @Override
+    public String calculateResponseCheckSum(String code, String message, String responseId, String responseTime, String privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        return calculateResponseCheckSum(code, message, responseId, responseTime, new HmacSha256Signer(privateKey));
+    }
+
+    @Override
+    public String calculateResponseCheckSum(String code, String message, String responseId, String responseTime, HmacSha256Signer signer) throws NoSuchAlgorithmException, InvalidKeyException {
+        return signer.begin()
+                .update(code)
+                .update(message)
+                .update(responseId)
+                .update(responseTime)
+                .doFinalHex();
+    }
+
+    /**
+     * Records the outcome of a finished request and writes its summary log line. A request that
+     * ended with {@code error} is recorded as {@link PaymentErrorCode#SYSTEM_ERROR}, the code the
+     * error handler answers it with.
+     */
+    protected void completeRequest(PaymentRequest request, PaymentResponse response, Throwable error, long startNanos) {
+        if (error != null) {
+            paymentMetrics.recordOutcome(request.getBankCode(), PaymentErrorCode.SYSTEM_ERROR.getCode(), startNanos);
+            paymentRequestLogger.logFailure(request, error, startNanos);
+            return;
+        }
+        paymentMetrics.recordOutcome(request.getBankCode(), response.getCode(), startNanos);
+        paymentRequestLogger.logOutcome(request, response, startNanos);
+    }
+
+    /**
+     * Journals a stored request with its response, see {@link PaymentJournal#append}.
+     */
+    protected CompletableFuture<PaymentResponse> journal(PaymentRequest request, byte[] record, PaymentResponse response) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> durable = paymentJournal.append(request, record, response);
+        paymentMetrics.recordStage(PaymentStage.JOURNAL, startNanos);
+        return durable.thenApply(done -> response);
+    }
+
+    protected PaymentResponse buildErrorResponse(PaymentErrorCode errorCode) {
+        return new PaymentResponse(
+                errorCode.getCode(), errorCode.getMessage(),
+                generateRandomId(), getCurrentTimestamp(), null);
+    }
+
+    protected PaymentResponse buildSuccessResponse(PaymentErrorCode errorCode, RegisteredBank bank) {
+        String responseId = generateRandomId();
+        String responseTime = getCurrentTimestamp();
+        String responseCheckSum = calculateResponseChecksum(errorCode, responseId, responseTime, bank);
+        return new PaymentResponse(
+                errorCode.getCode(), errorCode.getMessage(),
+                responseId, responseTime, responseCheckSum);
+    }
+
+    /**
+     * Same value as {@link #calculateResponseCheckSum}, starting from the bank's pre-encoded code
+     * and message.
+     */
+    private String calculateResponseChecksum(PaymentErrorCode errorCode, String responseId, String responseTime, RegisteredBank bank) {
+        try {
+            return bank.getResponsePrefix(errorCode).begin()
+                    .update(responseId)
+                    .update(responseTime)
+                    .doFinalHex();
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            logger.error("Error calculating response checksum for success response", e);
+            return null;
+        }
+    }
+
+    private String generateRandomId() {
+        return responseIdGenerator.nextId();
+    }
+
+    private String getCurrentTimestamp() {
+        return PaymentUtils.getCurrentTimestamp();
+    }
+}
@@ -1,19 +1,54 @@
 package vn.vnpay.demo1_16092024.bean.service;
 
-import vn.vnpay.demo1_16092024.bean.config.BankConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentQuery;
 import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentQueryResponse;
 import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
 
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IPaymentService {
 
-    PaymentResponse processPayment(PaymentRequest request, BankConfig bankConfig);
+    PaymentResponse processPayment(PaymentRequest request);
 
+    CompletableFuture<PaymentResponse> processPaymentAsync(PaymentRequest request);
+
+    /**
+     * Processes one record of an NDJSON file or stream. Per-bank admission and bulkheads are
+     * skipped: the stream's window already bounds its concurrency, and a record shed as 06 or 07
+     * would simply be missing from a replay.
+     */
+    CompletableFuture<PaymentResponse> processStreamedPaymentAsync(PaymentRequest request);
+
+    List<PaymentResponse> processBatch(List<PaymentRequest> requests);
+
+    CompletableFuture<List<PaymentResponse>> processBatchAsync(List<PaymentRequest> requests);
+
+    PaymentQueryResponse findPayment(String bankCode, String tokenKey);
+
+    CompletableFuture<PaymentQueryResponse> findPaymentAsync(String bankCode, String tokenKey);
+
+    List<PaymentQueryResponse> findPayments(List<PaymentQuery> queries);
+
+    CompletableFuture<List<PaymentQueryResponse>> findPaymentsAsync(List<PaymentQuery> queries);
+
+    /**
+     * Signs with a signer made for this call only; callers that sign repeatedly with the same
+     * key should hold a signer and use {@link #calculateRequestCheckSum(PaymentRequest, HmacSha256Signer)}.
+     */
     String calculateRequestCheckSum(PaymentRequest request, String privateKey)
             throws NoSuchAlgorithmException, InvalidKeyException;
 
+    String calculateRequestCheckSum(PaymentRequest request, HmacSha256Signer signer)
+            throws NoSuchAlgorithmException, InvalidKeyException;
+
     String calculateResponseCheckSum(String code, String message, String responseId, String responseTime, String privateKey)
             throws NoSuchAlgorithmException, InvalidKeyException;
+
+    String calculateResponseCheckSum(String code, String message, String responseId, String responseTime, HmacSha256Signer signer)
+            throws NoSuchAlgorithmException, InvalidKeyException;
 }
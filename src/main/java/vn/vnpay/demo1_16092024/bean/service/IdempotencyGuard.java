@@ -0,0 +1,204 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.IdempotencyConfig;
+import vn.vnpay.demo1_16092024.bean.config.RegisteredBank;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Short-circuits replays of the same bankCode/tokenKey/traceTransfer within the bank's
+ * duplicate window. A bounded local cache answers repeats seen by this node without touching
+ * Redis; the first sighting reserves the key with {@code SET NX PX} so other nodes can answer
+ * from the stored response as well.
+ */
+@Service
+public class IdempotencyGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyGuard.class);
+
+    private static final String PENDING = "PENDING";
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    @Autowired
+    private IdempotencyConfig config;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Entry> cache;
+
+    private Counter localHits;
+    private Counter remoteHits;
+    private Counter inProgress;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.windowNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.windowNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        localHits = lookupCounter("local_hit");
+        remoteHits = lookupCounter("remote_hit");
+        inProgress = lookupCounter("in_progress");
+        misses = lookupCounter("miss");
+    }
+
+    public CompletableFuture<PaymentResponse> execute(RegisteredBank bank, PaymentRequest request,
+                                                      Supplier<CompletableFuture<PaymentResponse>> action,
+                                                      Supplier<PaymentResponse> duplicateInProgress) {
+        Duration window = bank.getDuplicateWindow();
+        if (!config.isEnabled() || window == null || window.isZero() || window.isNegative()) {
+            return action.get();
+        }
+
+        String key = bank.getBankCode() + ':' + request.getTokenKey() + ':' + request.getTraceTransfer();
+        Entry entry = new Entry(window.toNanos());
+        Entry existing = cache.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            localHits.increment();
+            logger.debug("Duplicate request served from local cache for key: {}", key);
+            return existing.response;
+        }
+
+        String redisKey = config.getKeyPrefix() + key;
+        reserve(key, redisKey, window, entry, action, duplicateInProgress, MAX_RESERVE_ATTEMPTS)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        cache.asMap().remove(key, entry);
+                        entry.response.completeExceptionally(error);
+                    } else {
+                        entry.response.complete(response);
+                    }
+                });
+        return entry.response;
+    }
+
+    private CompletableFuture<PaymentResponse> reserve(String key, String redisKey, Duration window, Entry entry,
+                                                       Supplier<CompletableFuture<PaymentResponse>> action,
+                                                       Supplier<PaymentResponse> duplicateInProgress, int attempts) {
+        return redisUtils.reserveAsync(redisKey, PENDING, window)
+                .handle((reserved, error) -> {
+                    if (error != null) {
+                        logger.warn("Idempotency reservation failed for key: {}, processing without it: {}", key, error.toString());
+                        return Boolean.TRUE;
+                    }
+                    return reserved;
+                })
+                .thenCompose(reserved -> reserved
+                        ? processFirst(key, redisKey, entry, action)
+                        : resolveFromRedis(key, redisKey, window, entry, action, duplicateInProgress, attempts));
+    }
+
+    /**
+     * Runs the action once the key is reserved. A failed or unsuccessful payment gives the
+     * reservation back, so a retry is processed rather than answered as a duplicate.
+     */
+    private CompletableFuture<PaymentResponse> processFirst(String key, String redisKey, Entry entry,
+                                                            Supplier<CompletableFuture<PaymentResponse>> action) {
+        misses.increment();
+        CompletableFuture<PaymentResponse> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((response, error) -> {
+            if (error == null && PaymentErrorCode.SUCCESS.getCode().equals(response.getCode())) {
+                remember(redisKey, response);
+            } else {
+                cache.asMap().remove(key, entry);
+                redisUtils.deleteAsync(redisKey);
+            }
+        });
+    }
+
+    private CompletableFuture<PaymentResponse> resolveFromRedis(String key, String redisKey, Duration window, Entry entry,
+                                                                Supplier<CompletableFuture<PaymentResponse>> action,
+                                                                Supplier<PaymentResponse> duplicateInProgress, int attempts) {
+        return redisUtils.getAsync(redisKey).thenCompose(stored -> {
+            if (stored == null && attempts > 1) {
+                // the holder gave the reservation back, or it expired, since our SET NX
+                return reserve(key, redisKey, window, entry, action, duplicateInProgress, attempts - 1);
+            }
+            if (stored != null && !PENDING.equals(stored)) {
+                try {
+                    PaymentResponse response = objectMapper.readValue(stored, PaymentResponse.class);
+                    remoteHits.increment();
+                    logger.debug("Duplicate request served from Redis for key: {}", key);
+                    return CompletableFuture.completedFuture(response);
+                } catch (JsonProcessingException e) {
+                    logger.error("Cannot read stored response for key: {}. Error: {}", key, e.getMessage());
+                }
+            }
+            inProgress.increment();
+            cache.asMap().remove(key, entry);
+            return CompletableFuture.completedFuture(duplicateInProgress.get());
+        });
+    }
+
+    private void remember(String redisKey, PaymentResponse response) {
+        try {
+            redisUtils.replaceKeepingTtlAsync(redisKey, objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            logger.error("Cannot store response for key: {}. Error: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("payment.idempotency.lookups")
+                .description("Duplicate-detection lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry {
+
+        private final long windowNanos;
+        private final CompletableFuture<PaymentResponse> response = new CompletableFuture<>();
+
+        private Entry(long windowNanos) {
+            this.windowNanos = windowNanos;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.NdjsonConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs a newline-delimited stream of {@link PaymentRequest}s through {@link IPaymentService}
+ * and writes one {@link PaymentResponse} line per record, in input order. Records are parsed
+ * incrementally into a fixed ring of reusable requests and at most {@code window} of them are in
+ * flight, so memory depends on the window and not on the size of the input.
+ */
+@Service
+public class NdjsonPaymentProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonPaymentProcessor.class);
+
+    @Autowired
+    private IPaymentService paymentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NdjsonConfig config;
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+
+    @PostConstruct
+    public void init() {
+        requestReader = objectMapper.readerFor(PaymentRequest.class);
+        responseWriter = objectMapper.writerFor(PaymentResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Processes {@code in} until end of input and returns the number of records read. Neither
+     * stream is closed. A record that does not map onto a request is answered with
+     * {@link PaymentErrorCode#INVALID_INPUT}; malformed JSON ends the stream after that answer.
+     */
+    public long process(InputStream in, OutputStream out) throws IOException {
+        int window = Math.max(1, config.getWindow());
+        PaymentRequest[] requests = new PaymentRequest[window];
+        List<CompletableFuture<PaymentResponse>> responses = new ArrayList<>(Collections.nCopies(window, null));
+        for (int i = 0; i < window; i++) {
+            requests[i] = new PaymentRequest();
+        }
+
+        long count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)
+                     .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.setRootValueSeparator(null);
+            while (true) {
+                int slot = (int) (count % window);
+                if (responses.get(slot) != null) {
+                    writeResponse(generator, responses.get(slot));
+                    responses.set(slot, null);
+                }
+                PaymentRequest request = requests[slot];
+                request.reset();
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == null) {
+                        break;
+                    }
+                    responses.set(slot, read(parser, token, request));
+                    count++;
+                } catch (JsonParseException e) {
+                    logger.warn("Malformed NDJSON after {} record(s), stopping: {}", count, e.getOriginalMessage());
+                    responses.set(slot, invalidInput());
+                    count++;
+                    break;
+                }
+            }
+
+            for (long i = Math.max(0, count - window); i < count; i++) {
+                CompletableFuture<PaymentResponse> response = responses.get((int) (i % window));
+                if (response != null) {
+                    writeResponse(generator, response);
+                }
+            }
+        }
+        return count;
+    }
+
+    private CompletableFuture<PaymentResponse> read(JsonParser parser, JsonToken token, PaymentRequest request) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return invalidInput();
+        }
+        try {
+            requestReader.withValueToUpdate(request).readValue(parser);
+        } catch (JsonMappingException e) {
+            logger.debug("Cannot map NDJSON record: {}", e.getOriginalMessage());
+            while (!parser.getParsingContext().inRoot() && parser.nextToken() != null) {
+                // skip the rest of the record so the next one starts on a clean root
+            }
+            return invalidInput();
+        }
+        return paymentService.processStreamedPaymentAsync(request);
+    }
+
+    private void writeResponse(JsonGenerator generator, CompletableFuture<PaymentResponse> response) throws IOException {
+        if (!response.isDone()) {
+            // about to block, so hand what is already written to the client
+            generator.flush();
+        }
+        PaymentResponse value;
+        try {
+            value = response.join();
+        } catch (CompletionException e) {
+            logger.error("NDJSON record failed: {}", e.getCause().toString());
+            value = errorResponse(PaymentErrorCode.SYSTEM_ERROR);
+        }
+        responseWriter.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    private static CompletableFuture<PaymentResponse> invalidInput() {
+        return CompletableFuture.completedFuture(errorResponse(PaymentErrorCode.INVALID_INPUT));
+    }
+
+    private static PaymentResponse errorResponse(PaymentErrorCode errorCode) {
+        return new PaymentResponse(errorCode.getCode(), errorCode.getMessage(), null, null, null);
+    }
+}
@@ -0,0 +1,136 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentCodecs;
+import vn.vnpay.demo1_16092024.bean.config.QueryConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Near-cache in front of the stored payment records. Concurrent lookups of the same key share
+ * one Redis read, missing records are not cached, and multi-key lookups only fetch the keys not
+ * already cached: one {@code HMGET} per tokenKey, all pipelined into the same flush.
+ */
+@Service
+public class PaymentRecordCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentRecordCache.class);
+
+    @Autowired
+    private QueryConfig config;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private PaymentCodecs paymentCodecs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AsyncCache<Key, PaymentRequest> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(config.getCacheMaximumSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "payment.query.cache");
+    }
+
+    public CompletableFuture<PaymentRequest> find(String bankCode, String tokenKey) {
+        return cache.get(new Key(bankCode, tokenKey), (key, executor) -> redisUtils.getDataAsync(bankCode, tokenKey)
+                .thenApply(data -> decode(data)));
+    }
+
+    /**
+     * Returns the records found among {@code keys}; keys without a record are left out. A record
+     * that cannot be decoded is left out too and reported in {@link Lookup#unreadable()}, so it
+     * fails only its own key.
+     */
+    public CompletableFuture<Lookup> findAll(Collection<Key> keys) {
+        Set<Key> unreadable = ConcurrentHashMap.newKeySet();
+        return cache.getAll(keys, (missing, executor) -> load(missing, unreadable))
+                .thenApply(found -> new Lookup(found, unreadable));
+    }
+
+    /**
+     * Drops the cached record so the next read sees a write made by this instance.
+     */
+    public void invalidate(String bankCode, String tokenKey) {
+        cache.synchronous().invalidate(new Key(bankCode, tokenKey));
+    }
+
+    private CompletableFuture<Map<Key, PaymentRequest>> load(Set<? extends Key> keys, Set<Key> unreadable) {
+        Map<String, List<String>> bankCodesByToken = new LinkedHashMap<>();
+        for (Key key : keys) {
+            bankCodesByToken.computeIfAbsent(key.tokenKey(), tokenKey -> new ArrayList<>()).add(key.bankCode());
+        }
+        List<CompletableFuture<Void>> reads = new ArrayList<>(bankCodesByToken.size());
+        Map<Key, PaymentRequest> found = new HashMap<>();
+        bankCodesByToken.forEach((tokenKey, bankCodes) -> reads.add(redisUtils.getDataAsync(bankCodes, tokenKey)
+                .thenAccept(values -> {
+                    for (int i = 0; i < bankCodes.size(); i++) {
+                        Key key = new Key(bankCodes.get(i), tokenKey);
+                        PaymentRequest payment;
+                        try {
+                            payment = decode(values.get(i));
+                        } catch (UncheckedIOException e) {
+                            logger.error("Cannot decode stored payment for bankCode: {}, tokenKey: {}. Error: {}",
+                                    key.bankCode(), tokenKey, e.getCause().toString());
+                            unreadable.add(key);
+                            continue;
+                        }
+                        if (payment != null) {
+                            synchronized (found) {
+                                found.put(key, payment);
+                            }
+                        }
+                    }
+                })));
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenApply(done -> found);
+    }
+
+    private PaymentRequest decode(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return paymentCodecs.decode(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot decode stored payment record", e);
+        }
+    }
+
+    public record Key(String bankCode, String tokenKey) {
+    }
+
+    /**
+     * Result of {@link #findAll}: the records found, and the keys whose stored record could not
+     * be decoded.
+     */
+    public record Lookup(Map<Key, PaymentRequest> found, Set<Key> unreadable) {
+    }
+}
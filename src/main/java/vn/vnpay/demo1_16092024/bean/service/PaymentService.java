@@ -1,27 +1,24 @@
 package vn.vnpay.demo1_16092024.bean.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import vn.vnpay.demo1_16092024.bean.config.BankConfig;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentCodecs;
+import vn.vnpay.demo1_16092024.bean.config.RegisteredBank;
 import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentStage;
 import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
 import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
-import vn.vnpay.demo1_16092024.bean.utils.PaymentUtils;
-import vn.vnpay.demo1_16092024.bean.utils.PaymentValidateUtils;
 import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Optional;
-
-import static vn.vnpay.demo1_16092024.bean.utils.PaymentUtils.encodeHmacSha256;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @Service
-public class PaymentService implements IPaymentService {
+@Profile("!reactive")
+public class PaymentService extends AbstractPaymentService {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
@@ -29,146 +26,33 @@ public class PaymentService implements IPaymentService {
     private RedisUtils putDataRedis;
 
     @Autowired
-    private PaymentValidateUtils paymentValidateUtils;
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PaymentCodecs paymentCodecs;
 
     @Override
-    public PaymentResponse processPayment(PaymentRequest request, BankConfig bankConfig) {
-        logger.info("Starting input data validation for request: {}", request);
-
-        if (!validateRequest(request)) {
-            return buildErrorResponse(PaymentErrorCode.INVALID_INPUT);
-        }
-
-        Optional<BankConfig.Bank> bankOptional = findBankByCode(request.getBankCode(), bankConfig);
-        if (bankOptional.isEmpty()) {
-            logger.info("Bank code not found: {}", request.getBankCode());
-            return buildErrorResponse(PaymentErrorCode.BANK_CODE_NOT_FOUND);
-        }
-
-        BankConfig.Bank bank = bankOptional.get();
-        logger.info("Bank found for code: {}. Proceeding with checksum validation.", request.getBankCode());
-
-        String calculatedCheckSum = calculateChecksum(request, bank);
-        if (calculatedCheckSum == null || !calculatedCheckSum.equals(request.getCheckSum())) {
-            logger.info("Invalid checksum: {}. Expected: {}", request.getCheckSum(), calculatedCheckSum);
-            return buildErrorResponse(PaymentErrorCode.INVALID_CHECKSUM);
-        }
-
-        String requestAsString;
+    protected CompletableFuture<PaymentResponse> persistPayment(PaymentRequest request, RegisteredBank bank) {
+        long startNanos = System.nanoTime();
+        byte[] record;
         try{
-            requestAsString = objectMapper.writeValueAsString(request);
-        }catch(JsonProcessingException e){
-            logger.error("Error converting request to JSON: {}", e.getMessage());
-            return buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR);
-        }
-        logger.info("Writing data to Redis for bankCode: {}, tokenKey: {}", request.getBankCode(), request.getTokenKey());
-        if (!putDataRedis.putData(request.getBankCode(), request.getTokenKey(), requestAsString)) {
-            logger.info("Failed to write data to Redis for tokenKey: {}", request.getTokenKey());
-            return buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR);
-        }
-
-        logger.info("Request successfully processed for bankCode: {}. Returning success response.", request.getBankCode());
-        return buildSuccessResponse(PaymentErrorCode.SUCCESS, bank.getPrivateKey());
-    }
-
-    private boolean validateRequest(PaymentRequest request) {
-        if (!paymentValidateUtils.validateFields(request)) {
-            logger.info("Validation failed: Invalid input data for request: {}", request);
-            return false;
-        }
-        return true;
-    }
-
-    private String calculateChecksum(PaymentRequest request, BankConfig.Bank bank) {
-        try {
-            logger.info("Calculating checksum for request: {}", request);
-            return calculateRequestCheckSum(request, bank.getPrivateKey());
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            logger.error("Error calculating checksum for request: {}", request, e);
-            return null;
-        }
-    }
-
-//    private String convertRequestToJson(PaymentRequest request) {
-//        try {
-//            return objectMapper.writeValueAsString(request);
-//        } catch (JsonProcessingException e) {
-//            logger.error("Error converting request to JSON string", e);
-//            return null;
-//        }
-//    }
-
-    @Override
-    public String calculateRequestCheckSum(PaymentRequest request, String privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
-        logger.info("Start calculating request checksum for PaymentRequest with mobile: {}", request.getMobile());
-        String data = new StringBuilder()
-                .append(request.getMobile())
-                .append(request.getBankCode())
-                .append(request.getAccountNo())
-                .append(request.getPayDate())
-                .append(request.getDebitAmount())
-                .append(request.getRespCode())
-                .append(request.getTraceTransfer())
-                .append(request.getMessageType())
-                .toString();
-        String checksum = encodeHmacSha256(data, privateKey);
-        logger.info("Calculated request checksum: {}", checksum);
-        return checksum;
-    }
-
-    @Override
-    public String calculateResponseCheckSum(String code, String message, String responseId, String responseTime, String privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
-        logger.info("Start calculating response checksum for code: {}, message: {}, responseId: {}, responseTime: {}", code, message, responseId, responseTime);
-        String data = new StringBuilder()
-                .append(code)
-                .append(message)
-                .append(responseId)
-                .append(responseTime)
-                .toString();
-        String checksum = encodeHmacSha256(data, privateKey);
-        logger.info("Calculated response checksum: {}", checksum);
-        return checksum;
-    }
-
-    private Optional<BankConfig.Bank> findBankByCode(String bankCode, BankConfig bankConfig) {
-        return bankConfig.getBankList().stream()
-                .filter(bank -> bank.getBankCode().equals(bankCode))
-                .findFirst();
-    }
-
-    private PaymentResponse buildErrorResponse(PaymentErrorCode errorCode) {
-        return new PaymentResponse(
-                errorCode.getCode(), errorCode.getMessage(),
-                generateRandomId(), getCurrentTimestamp(), null);
-    }
-
-    private PaymentResponse buildSuccessResponse(PaymentErrorCode errorCode, String privateKey) {
-        String responseId = generateRandomId();
-        String responseTime = getCurrentTimestamp();
-        String responseCheckSum = calculateResponseChecksum(errorCode, responseId, responseTime, privateKey);
-        return new PaymentResponse(
-                errorCode.getCode(), errorCode.getMessage(),
-                responseId, responseTime, responseCheckSum);
-    }
-
-    private String calculateResponseChecksum(PaymentErrorCode errorCode, String responseId, String responseTime, String privateKey) {
-        try {
-            return calculateResponseCheckSum(
-                    errorCode.getCode(), errorCode.getMessage(),
-                    responseId, responseTime, privateKey);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            logger.error("Error calculating response checksum for success response", e);
-            return null;
-        }
-    }
-
-    private String generateRandomId() {
-        return PaymentUtils.generateRandomId();
-    }
-
-    private String getCurrentTimestamp() {
-        return PaymentUtils.getCurrentTimestamp();
+            record = paymentCodecs.encode(request);
+            startNanos = paymentMetrics.recordStage(PaymentStage.SERIALIZATION, startNanos);
+        }catch(IOException e){
+            logger.error("Error encoding request: {}", e.getMessage());
+            return completedResponse(buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR));
+        }
+        logger.debug("Writing data to Redis for bankCode: {}, tokenKey: {}", request.getBankCode(), request.getTokenKey());
+        long writeStartNanos = startNanos;
+        return putDataRedis.putDataAsync(request.getBankCode(), request.getTokenKey(), record, bank.getRecordTtl())
+                .thenCompose(stored -> {
+                    paymentMetrics.recordStage(PaymentStage.REDIS_WRITE, writeStartNanos);
+                    if (!stored) {
+                        logger.warn("Failed to write data to Redis for tokenKey: {}", request.getTokenKey());
+                        return completedResponse(buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR));
+                    }
+                    return journal(request, record, buildSuccessResponse(PaymentErrorCode.SUCCESS, bank));
+                });
+    }
+
+    private CompletableFuture<PaymentResponse> completedResponse(PaymentResponse response) {
+        return CompletableFuture.completedFuture(response);
     }
 }
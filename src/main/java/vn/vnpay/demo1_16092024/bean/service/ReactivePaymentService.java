@@ -0,0 +1,142 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentCodecs;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.config.RegisteredBank;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentStage;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.exception.RedisUnavailableException;
+import vn.vnpay.demo1_16092024.bean.utils.RedisCircuitBreaker;
+import vn.vnpay.demo1_16092024.bean.utils.RedisPipeline;
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+import vn.vnpay.demo1_16092024.bean.utils.RedisWriteSpool;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link PaymentService} for the {@code reactive} profile: the same
+ * validate, bank lookup and checksum stages, persisted through a {@link ReactiveRedisTemplate}.
+ */
+@Service
+@Profile("reactive")
+public class ReactivePaymentService extends AbstractPaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePaymentService.class);
+
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> paymentRecordRedisTemplate;
+
+    @Autowired
+    private PaymentCodecs paymentCodecs;
+
+    @Autowired
+    private RedisResilienceConfig redisResilienceConfig;
+
+    @Autowired
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    private RedisWriteSpool redisWriteSpool;
+
+    @Autowired
+    private RedisPipeline redisPipeline;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    public Mono<PaymentResponse> processPaymentReactive(PaymentRequest request) {
+        return Mono.fromFuture(() -> processPaymentAsync(request));
+    }
+
+    public Mono<List<PaymentResponse>> processBatchReactive(List<PaymentRequest> requests) {
+        return Mono.fromFuture(() -> processBatchAsync(requests));
+    }
+
+    @Override
+    protected CompletableFuture<PaymentResponse> persistPayment(PaymentRequest request, RegisteredBank bank) {
+        return store(request, bank).toFuture();
+    }
+
+    /**
+     * Same fallback as {@link vn.vnpay.demo1_16092024.bean.utils.RedisUtils#putDataAsync}: a write
+     * that times out, fails or meets an open circuit is spooled and still answered as stored.
+     * The template only knows one node, so with client-side sharding the write goes through
+     * {@link RedisUtils} instead.
+     */
+    private Mono<PaymentResponse> store(PaymentRequest request, RegisteredBank bank) {
+        return Mono.fromCallable(() -> encode(request))
+                .flatMap(record -> persist(request, record, bank)
+                        .flatMap(stored -> stored
+                                ? Mono.fromFuture(() -> journal(request, record, buildSuccessResponse(PaymentErrorCode.SUCCESS, bank)))
+                                : Mono.just(buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR))))
+                .onErrorResume(error -> {
+                    logger.error("Failed to store data in Redis for tokenKey: {}, bankCode: {}. Error: {}",
+                            request.getTokenKey(), request.getBankCode(), error.toString());
+                    return Mono.just(buildErrorResponse(PaymentErrorCode.SYSTEM_ERROR));
+                });
+    }
+
+    private Mono<Boolean> persist(PaymentRequest request, byte[] record, RegisteredBank bank) {
+        if (redisPipeline.isSharded()) {
+            long startNanos = System.nanoTime();
+            return Mono.fromFuture(() -> redisUtils.putDataAsync(request.getBankCode(), request.getTokenKey(),
+                            record, bank.getRecordTtl()))
+                    .doFinally(signal -> paymentMetrics.recordStage(PaymentStage.REDIS_WRITE, startNanos));
+        }
+        if (redisWriteSpool.hasPending()) {
+            return spool(request, record, bank.getRecordTtl(), null);
+        }
+        long startNanos = System.nanoTime();
+        return Mono.fromFuture(() -> redisCircuitBreaker.call(() -> write(request, record, bank.getRecordTtl())
+                        .timeout(redisResilienceConfig.getWriteTimeout())
+                        .toFuture()))
+                .onErrorResume(error -> spool(request, record, bank.getRecordTtl(), error))
+                .doFinally(signal -> paymentMetrics.recordStage(PaymentStage.REDIS_WRITE, startNanos));
+    }
+
+    private Mono<Boolean> spool(PaymentRequest request, byte[] record, Duration ttl, Throwable error) {
+        return Mono.fromFuture(() -> redisWriteSpool.append(request.getBankCode(), request.getTokenKey(), record, ttl))
+                .doOnNext(spooled -> {
+                    if (!spooled) {
+                        logger.error("Failed to store data in Redis for tokenKey: {}, bankCode: {}. Error: {}",
+                                request.getTokenKey(), request.getBankCode(), error != null ? error.toString() : "spool unavailable");
+                    } else if (error != null && !(error instanceof RedisUnavailableException)) {
+                        logger.warn("Redis write failed for tokenKey: {}, bankCode: {}, spooled for replay. Error: {}",
+                                request.getTokenKey(), request.getBankCode(), error.toString());
+                    }
+                });
+    }
+
+    /**
+     * HSET only reports whether the field was new; overwriting an earlier record is as much a
+     * stored payment, as it is for {@link RedisUtils#putDataAsync}.
+     */
+    private Mono<Boolean> write(PaymentRequest request, byte[] record, Duration ttl) {
+        Mono<Boolean> stored = paymentRecordRedisTemplate.<String, byte[]>opsForHash()
+                .put(request.getTokenKey(), request.getBankCode(), record)
+                .thenReturn(true);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return stored;
+        }
+        return stored.zipWith(paymentRecordRedisTemplate.expire(request.getTokenKey(), ttl), (written, expired) -> written);
+    }
+
+    private byte[] encode(PaymentRequest request) throws IOException {
+        long startNanos = System.nanoTime();
+        byte[] record = paymentCodecs.encode(request);
+        paymentMetrics.recordStage(PaymentStage.SERIALIZATION, startNanos);
+        return record;
+    }
+}
@@ -0,0 +1,120 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import vn.vnpay.demo1_16092024.bean.constant.AdmissionResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-bank admission limits compiled when the bank registry is built: a token bucket for the
+ * request rate and a cap on requests in flight. Both are single atomics updated with CAS, so
+ * admission never blocks.
+ *
+ * <p>The bucket is kept as a theoretical arrival time (GCRA): each admitted request pushes it
+ * one interval further, and a request is refused when that time runs more than
+ * {@code burst - 1} intervals ahead of now.
+ */
+public final class BankLimiter {
+
+    public static final BankLimiter UNLIMITED = new BankLimiter(0, 0, Integer.MAX_VALUE);
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxConcurrent;
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private BankLimiter(long intervalNanos, long toleranceNanos, int maxConcurrent) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = toleranceNanos;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * @param ratePerSecond sustained requests per second, or {@code null} for no rate limit
+     * @param burst         requests admitted at once from idle; defaults to one second's worth
+     * @param maxConcurrent requests in flight, or {@code null} for no limit
+     */
+    public static BankLimiter of(Double ratePerSecond, Integer burst, Integer maxConcurrent) {
+        if ((ratePerSecond == null || ratePerSecond <= 0) && maxConcurrent == null) {
+            return UNLIMITED;
+        }
+        long interval = 0;
+        long tolerance = 0;
+        if (ratePerSecond != null && ratePerSecond > 0) {
+            interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+            int size = burst != null ? burst : (int) Math.ceil(ratePerSecond);
+            tolerance = Math.max(0, size - 1) * interval;
+        }
+        return new BankLimiter(interval, tolerance, maxConcurrent != null ? maxConcurrent : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #of(Double, Integer, Integer)}, but returns {@code current} when it already
+     * enforces the same limits, so a registry reload keeps its bucket and requests in flight.
+     */
+    public static BankLimiter of(Double ratePerSecond, Integer burst, Integer maxConcurrent, BankLimiter current) {
+        BankLimiter limiter = of(ratePerSecond, burst, maxConcurrent);
+        return current != null && current.intervalNanos == limiter.intervalNanos
+                && current.toleranceNanos == limiter.toleranceNanos && current.maxConcurrent == limiter.maxConcurrent
+                ? current
+                : limiter;
+    }
+
+    /**
+     * Takes a concurrency slot and a token. On {@link AdmissionResult#ADMITTED} the caller must
+     * {@link #release()} once the request has finished.
+     */
+    public AdmissionResult tryAcquire() {
+        if (this == UNLIMITED) {
+            return AdmissionResult.ADMITTED;
+        }
+        if (!acquireSlot()) {
+            return AdmissionResult.CONCURRENCY_LIMITED;
+        }
+        if (!acquireToken()) {
+            inFlight.decrementAndGet();
+            return AdmissionResult.RATE_LIMITED;
+        }
+        return AdmissionResult.ADMITTED;
+    }
+
+    public void release() {
+        if (this != UNLIMITED) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private boolean acquireSlot() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private boolean acquireToken() {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long arrival;
+        long start;
+        do {
+            arrival = theoreticalArrival.get();
+            start = arrival - now > 0 ? arrival : now;
+            if (start - now > toleranceNanos) {
+                return false;
+            }
+        } while (!theoreticalArrival.compareAndSet(arrival, start + intervalNanos));
+        return true;
+    }
+}
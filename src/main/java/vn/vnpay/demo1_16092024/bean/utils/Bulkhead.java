@@ -0,0 +1,232 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import vn.vnpay.demo1_16092024.bean.config.BulkheadConfig;
+import vn.vnpay.demo1_16092024.bean.constant.BulkheadRejection;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Isolated slice of the payment path for one bank tier: its own threads and bounded queue for
+ * the synchronous work, and a cap on requests in flight until their response is ready. A tier
+ * that saturates answers busy instead of taking threads, queue slots or Redis pipeline capacity
+ * from the others.
+ *
+ * <p>On platform threads the work is handed to a dedicated pool. On virtual threads blocking is
+ * cheap, so the caller runs the work itself once it holds one of {@code threads} permits; the
+ * wait for a permit plays the part of the queue.
+ */
+public final class Bulkhead {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(1_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long queueTimeoutNanos;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore workers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter[] rejections = new Counter[BulkheadRejection.values().length];
+    private final Timer queueWait;
+    private final Timer duration;
+
+    /**
+     * @param callerRuns run the work on the calling thread behind a semaphore instead of a pool,
+     *                   for callers on virtual threads
+     */
+    public Bulkhead(String name, BulkheadConfig.Tier tier, boolean callerRuns, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = tier.getMaxConcurrent();
+        this.queueCapacity = tier.getQueueCapacity();
+        this.queueTimeoutNanos = tier.getQueueTimeout().toNanos();
+        if (callerRuns) {
+            executor = null;
+            workers = new Semaphore(tier.getThreads(), true);
+        } else {
+            executor = newExecutor(name, tier.getThreads(), tier.getQueueCapacity());
+            workers = null;
+        }
+        for (BulkheadRejection rejection : BulkheadRejection.values()) {
+            rejections[rejection.ordinal()] = Counter.builder("payment.bulkhead.rejected")
+                    .description("Requests answered busy by a bulkhead")
+                    .tag("bulkhead", name)
+                    .tag("reason", rejection.getTag())
+                    .register(meterRegistry);
+        }
+        queueWait = Timer.builder("payment.bulkhead.queue.wait")
+                .description("Time a request waited for a bulkhead thread")
+                .tag("bulkhead", name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry);
+        duration = Timer.builder("payment.bulkhead.duration")
+                .description("Time from entering a bulkhead to the response, for admitted requests")
+                .tag("bulkhead", name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry);
+        Gauge.builder("payment.bulkhead.in_flight", inFlight, AtomicInteger::get)
+                .description("Requests inside the bulkhead")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("payment.bulkhead.queue.depth", this, Bulkhead::getQueueDepth)
+                .description("Requests waiting for a bulkhead thread")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} inside the bulkhead. The synchronous part of the task runs on a bulkhead
+     * thread (or under a worker permit) and the in-flight slot is held until the returned future
+     * completes. When the bulkhead is saturated the task does not run and the result is
+     * {@code busy}.
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> task, Supplier<T> busy) {
+        if (!acquireSlot()) {
+            return reject(BulkheadRejection.FULL, busy);
+        }
+        CompletableFuture<T> result;
+        try {
+            result = executor != null ? submit(task, busy) : runOnCaller(task, busy);
+        } catch (RuntimeException | Error e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        return result.whenComplete((value, error) -> inFlight.decrementAndGet());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueueDepth() {
+        return executor != null ? executor.getQueue().size() : waiting.get();
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task, Supplier<T> busy) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedNanos = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                if (!waited(enqueuedNanos)) {
+                    result.complete(reject(BulkheadRejection.QUEUE_TIMEOUT, busy).join());
+                    return;
+                }
+                CompletableFuture<T> future;
+                try {
+                    future = run(task, enqueuedNanos);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                future.whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            return reject(BulkheadRejection.QUEUE_FULL, busy);
+        }
+        return result;
+    }
+
+    private <T> CompletableFuture<T> runOnCaller(Supplier<CompletableFuture<T>> task, Supplier<T> busy) {
+        long enqueuedNanos = System.nanoTime();
+        if (!workers.tryAcquire()) {
+            if (waiting.incrementAndGet() > queueCapacity) {
+                waiting.decrementAndGet();
+                return reject(BulkheadRejection.QUEUE_FULL, busy);
+            }
+            boolean acquired;
+            try {
+                acquired = workers.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (!acquired) {
+                queueWait.record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+                return reject(BulkheadRejection.QUEUE_TIMEOUT, busy);
+            }
+        }
+        try {
+            waited(enqueuedNanos);
+            return run(task, enqueuedNanos);
+        } finally {
+            workers.release();
+        }
+    }
+
+    /**
+     * Records the queue wait and returns whether it stayed within the queue timeout.
+     */
+    private boolean waited(long enqueuedNanos) {
+        long waitedNanos = System.nanoTime() - enqueuedNanos;
+        queueWait.record(waitedNanos, TimeUnit.NANOSECONDS);
+        return waitedNanos <= queueTimeoutNanos;
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<CompletableFuture<T>> task, long enteredNanos) {
+        return task.get().whenComplete((value, error) ->
+                duration.record(System.nanoTime() - enteredNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private <T> CompletableFuture<T> reject(BulkheadRejection rejection, Supplier<T> busy) {
+        rejections[rejection.ordinal()].increment();
+        return CompletableFuture.completedFuture(busy.get());
+    }
+
+    private boolean acquireSlot() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private static ThreadPoolExecutor newExecutor(String name, int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-bulkhead-" + name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,39 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+public class LogMaskingUtils {
+
+    private static final char MASK_CHAR = '*';
+
+    private LogMaskingUtils() {
+    }
+
+    public static String maskAccountNo(String accountNo) {
+        return mask(accountNo, 0, 4);
+    }
+
+    public static String maskMobile(String mobile) {
+        return mask(mobile, 3, 3);
+    }
+
+    /**
+     * For values derived from a bank's private key (checksums): keeps only enough to correlate.
+     */
+    public static String maskSecret(String secret) {
+        return mask(secret, 4, 0);
+    }
+
+    public static String mask(String value, int visiblePrefix, int visibleSuffix) {
+        if (value == null) {
+            return null;
+        }
+        int length = value.length();
+        if (length <= visiblePrefix + visibleSuffix) {
+            return String.valueOf(MASK_CHAR).repeat(length);
+        }
+        char[] masked = value.toCharArray();
+        for (int i = visiblePrefix; i < length - visibleSuffix; i++) {
+            masked[i] = MASK_CHAR;
+        }
+        return new String(masked);
+    }
+}
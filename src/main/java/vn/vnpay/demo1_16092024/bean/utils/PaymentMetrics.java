@@ -0,0 +1,118 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+import vn.vnpay.demo1_16092024.bean.constant.AdmissionResult;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentStage;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timers and outcome counters for the payment path. Every meter is registered up front
+ * or once per bank, so recording on the hot path is an array index and a lock-free update.
+ * Bank codes that are not registered share the {@code unknown} tag to keep cardinality bounded.
+ */
+@Service
+public class PaymentMetrics {
+
+    static final String UNKNOWN_BANK = "unknown";
+
+    private static final PaymentErrorCode[] CODES = PaymentErrorCode.values();
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(1_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BankRegistry bankRegistry;
+
+    private final Timer[] stageTimers = new Timer[PaymentStage.values().length];
+    private final Timer[] requestTimers = new Timer[CODES.length];
+    private final Map<String, Counter[]> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> admissions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (PaymentStage stage : PaymentStage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("payment.stage.duration")
+                    .description("Time spent in one stage of payment processing")
+                    .tag("stage", stage.getTag())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry);
+        }
+        for (PaymentErrorCode code : CODES) {
+            requestTimers[code.ordinal()] = Timer.builder("payment.request.duration")
+                    .description("End-to-end payment processing time by response code")
+                    .tag("code", code.getCode())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Records the time since {@code startNanos} against {@code stage} and returns the current
+     * {@link System#nanoTime()}, so consecutive stages can share one clock read.
+     */
+    public long recordStage(PaymentStage stage, long startNanos) {
+        long now = System.nanoTime();
+        stageTimers[stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void recordOutcome(String bankCode, String responseCode, long startNanos) {
+        PaymentErrorCode code = PaymentErrorCode.fromCode(responseCode);
+        if (code == null) {
+            code = PaymentErrorCode.SYSTEM_ERROR;
+        }
+        requestTimers[code.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        String bankTag = bankRegistry.find(bankCode) != null ? bankCode : UNKNOWN_BANK;
+        outcomes.computeIfAbsent(bankTag, this::outcomeCounters)[code.ordinal()].increment();
+    }
+
+    /**
+     * Counts an admission decision for a registered bank.
+     */
+    public void recordAdmission(String bankCode, AdmissionResult result) {
+        admissions.computeIfAbsent(bankCode, this::admissionCounters)[result.ordinal()].increment();
+    }
+
+    private Counter[] admissionCounters(String bankCode) {
+        AdmissionResult[] results = AdmissionResult.values();
+        Counter[] counters = new Counter[results.length];
+        for (AdmissionResult result : results) {
+            counters[result.ordinal()] = Counter.builder("payment.admission")
+                    .description("Admission decisions by bank")
+                    .tag("bank", bankCode)
+                    .tag("result", result.getTag())
+                    .register(meterRegistry);
+        }
+        return counters;
+    }
+
+    private Counter[] outcomeCounters(String bankTag) {
+        Counter[] counters = new Counter[CODES.length];
+        for (PaymentErrorCode code : CODES) {
+            counters[code.ordinal()] = Counter.builder("payment.requests")
+                    .description("Payment requests by response code and bank")
+                    .tag("code", code.getCode())
+                    .tag("bank", bankTag)
+                    .register(meterRegistry);
+        }
+        return counters;
+    }
+}
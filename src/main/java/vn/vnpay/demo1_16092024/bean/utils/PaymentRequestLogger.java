@@ -0,0 +1,58 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.LoggingConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes the one summary line each payment request produces, keyed by its traceTransfer, plus a
+ * masked detail line for a sampled fraction of requests (or all of them at DEBUG).
+ */
+@Service
+public class PaymentRequestLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentRequestLogger.class);
+
+    @Autowired
+    private LoggingConfig config;
+
+    public void logOutcome(PaymentRequest request, PaymentResponse response, long startNanos) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        long elapsedMicros = (System.nanoTime() - startNanos) / 1_000;
+        logger.info("payment trace={} bank={} token={} account={} code={} responseId={} elapsedUs={}",
+                request.getTraceTransfer(), request.getBankCode(), request.getTokenKey(),
+                LogMaskingUtils.maskAccountNo(request.getAccountNo()),
+                response.getCode(), response.getResponseId(), elapsedMicros);
+        if (logger.isDebugEnabled() || sampled()) {
+            logger.info("payment trace={} request={} response={}", request.getTraceTransfer(), request, response);
+        }
+    }
+
+    /**
+     * Writes the summary line of a request that ended with an exception instead of a response,
+     * at WARN so it is kept when INFO is off.
+     */
+    public void logFailure(PaymentRequest request, Throwable error, long startNanos) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        long elapsedMicros = (System.nanoTime() - startNanos) / 1_000;
+        logger.warn("payment trace={} bank={} token={} account={} code={} elapsedUs={} error={}",
+                request.getTraceTransfer(), request.getBankCode(), request.getTokenKey(),
+                LogMaskingUtils.maskAccountNo(request.getAccountNo()),
+                PaymentErrorCode.SYSTEM_ERROR.getCode(), elapsedMicros, cause.toString());
+    }
+
+    private boolean sampled() {
+        double rate = config.getDetailSampleRate();
+        return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -0,0 +1,134 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+/**
+ * Single-pass validator for {@link PaymentRequest}. Blank, digit and integer checks work on the
+ * characters directly, so a valid request costs no allocation and no exception.
+ */
+@Service
+public class PaymentRequestValidator {
+
+    private static final int MOBILE_LENGTH = 10;
+    private static final int PAY_DATE_LENGTH = 14;
+
+    private static final int TOKEN_KEY = ValidationResult.bit(FieldName.TOKEN_KEY);
+    private static final int API_ID = ValidationResult.bit(FieldName.API_ID);
+    private static final int MOBILE = ValidationResult.bit(FieldName.MOBILE);
+    private static final int BANK_CODE = ValidationResult.bit(FieldName.BANK_CODE);
+    private static final int ACCOUNT_NO = ValidationResult.bit(FieldName.ACCOUNT_NO);
+    private static final int PAY_DATE = ValidationResult.bit(FieldName.PAY_DATE);
+    private static final int ADDITIONAL_DATA = ValidationResult.bit(FieldName.ADDITIONAL_DATA);
+    private static final int DEBIT_AMOUNT = ValidationResult.bit(FieldName.DEBIT_AMOUNT);
+    private static final int RESP_CODE = ValidationResult.bit(FieldName.RESP_CODE);
+    private static final int RESP_DESC = ValidationResult.bit(FieldName.RESP_DESC);
+    private static final int TRACE_TRANSFER = ValidationResult.bit(FieldName.TRACE_TRANSFER);
+    private static final int MESSAGE_TYPE = ValidationResult.bit(FieldName.MESSAGE_TYPE);
+    private static final int CHECKSUM = ValidationResult.bit(FieldName.CHECKSUM);
+    private static final int ORDER_CODE = ValidationResult.bit(FieldName.ORDER_CODE);
+    private static final int USER_NAME = ValidationResult.bit(FieldName.USER_NAME);
+    private static final int REAL_AMOUNT = ValidationResult.bit(FieldName.REAL_AMOUNT);
+    private static final int PROMOTION_CODE = ValidationResult.bit(FieldName.PROMOTION_CODE);
+
+    public ValidationResult validate(PaymentRequest request) {
+        return validate(request, ValidationRules.DEFAULT);
+    }
+
+    public ValidationResult validate(PaymentRequest request, ValidationRules rules) {
+        int failed = text(request.getTokenKey(), TOKEN_KEY, rules)
+                | text(request.getApiID(), API_ID, rules)
+                | digits(request.getMobile(), MOBILE_LENGTH, MOBILE, rules)
+                | text(request.getBankCode(), BANK_CODE, rules)
+                | text(request.getAccountNo(), ACCOUNT_NO, rules)
+                | digits(request.getPayDate(), PAY_DATE_LENGTH, PAY_DATE, rules)
+                | text(request.getAdditionalData(), ADDITIONAL_DATA, rules)
+                | debitAmount(request.getDebitAmount(), rules)
+                | text(request.getRespCode(), RESP_CODE, rules)
+                | text(request.getRespDesc(), RESP_DESC, rules)
+                | text(request.getTraceTransfer(), TRACE_TRANSFER, rules)
+                | text(request.getMessageType(), MESSAGE_TYPE, rules)
+                | text(request.getCheckSum(), CHECKSUM, rules)
+                | text(request.getOrderCode(), ORDER_CODE, rules)
+                | text(request.getUserName(), USER_NAME, rules)
+                | integer(request.getRealAmount(), REAL_AMOUNT, rules)
+                | text(request.getPromotionCode(), PROMOTION_CODE, rules);
+        return failed == 0 ? ValidationResult.VALID : new ValidationResult(failed);
+    }
+
+    private static int text(String value, int fieldBit, ValidationRules rules) {
+        return isBlank(value) && !rules.isOptional(fieldBit) ? fieldBit : 0;
+    }
+
+    private static int digits(String value, int length, int fieldBit, ValidationRules rules) {
+        if (isBlank(value)) {
+            return rules.isOptional(fieldBit) ? 0 : fieldBit;
+        }
+        if (value.length() != length) {
+            return fieldBit;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return fieldBit;
+            }
+        }
+        return 0;
+    }
+
+    private static int debitAmount(Integer value, ValidationRules rules) {
+        if (value == null) {
+            return rules.isOptional(DEBIT_AMOUNT) ? 0 : DEBIT_AMOUNT;
+        }
+        return value > rules.getMaxDebitAmount() ? DEBIT_AMOUNT : 0;
+    }
+
+    /**
+     * Accepts exactly what {@link Integer#parseInt(String)} accepts for ASCII input: an optional
+     * sign followed by at least one digit, within the {@code int} range.
+     */
+    private static int integer(String value, int fieldBit, ValidationRules rules) {
+        if (isBlank(value)) {
+            return rules.isOptional(fieldBit) ? 0 : fieldBit;
+        }
+        int length = value.length();
+        int i = 0;
+        char first = value.charAt(0);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+        if (i == length) {
+            return fieldBit;
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long magnitude = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                return fieldBit;
+            }
+            magnitude = magnitude * 10 + (c - '0');
+            if (magnitude > limit) {
+                return fieldBit;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,129 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.constant.CircuitState;
+import vn.vnpay.demo1_16092024.bean.exception.RedisUnavailableException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Consecutive-failure circuit breaker shared by every Redis command. Failed writes and timed-out
+ * commands count as failures; a read answered with an error does not, nor does a
+ * {@code MOVED}/{@code ASK} redirect, since the node did answer. After {@code failureThreshold}
+ * failures in a row it opens and commands fail fast with {@link RedisUnavailableException}; once
+ * {@code openDuration} has passed a single probe is let through, and its outcome closes or
+ * re-opens the circuit.
+ */
+@Service
+public class RedisCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    @Autowired
+    private RedisResilienceConfig config;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAtNanos;
+
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("payment.redis.circuit.state", state, current -> current.get().getGaugeValue())
+                .description("Redis circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        rejected = Counter.builder("payment.redis.circuit.rejected")
+                .description("Redis commands failed fast while the circuit was open")
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> command) {
+        return call(command, true);
+    }
+
+    /**
+     * Runs {@code command} unless the circuit is open. Reads only count when they time out, and
+     * only a successful write resets the failure count, so a run of failing writes still opens
+     * the circuit while reads succeed.
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> command, boolean write) {
+        if (!tryAcquire()) {
+            return CompletableFuture.failedFuture(new RedisUnavailableException("Redis circuit is open"));
+        }
+        return command.get().whenComplete((value, error) -> {
+            if (error != null && isFailure(error, write)) {
+                onFailure();
+            } else if (write || state.get() == CircuitState.HALF_OPEN) {
+                onSuccess();
+            }
+        });
+    }
+
+    public CircuitState getState() {
+        return state.get();
+    }
+
+    boolean tryAcquire() {
+        CircuitState current = state.get();
+        if (current == CircuitState.CLOSED) {
+            return true;
+        }
+        if (current == CircuitState.OPEN
+                && System.nanoTime() - openedAtNanos >= config.getOpenDuration().toNanos()
+                && state.compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN)) {
+            logger.info("Redis circuit half-open, probing");
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    static boolean isFailure(Throwable error, boolean write) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (RedisPipeline.isRedirect(cause)) {
+            return false;
+        }
+        return write || cause instanceof TimeoutException || cause instanceof RedisCommandTimeoutException;
+    }
+
+    void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() != CircuitState.CLOSED && state.getAndSet(CircuitState.CLOSED) != CircuitState.CLOSED) {
+            logger.info("Redis circuit closed");
+        }
+    }
+
+    void onFailure() {
+        if (state.get() == CircuitState.HALF_OPEN) {
+            open(CircuitState.HALF_OPEN);
+        } else if (consecutiveFailures.incrementAndGet() >= config.getFailureThreshold()) {
+            open(CircuitState.CLOSED);
+        }
+    }
+
+    private void open(CircuitState from) {
+        openedAtNanos = System.nanoTime();
+        if (state.compareAndSet(from, CircuitState.OPEN)) {
+            consecutiveFailures.set(0);
+            logger.warn("Redis circuit opened for {}", config.getOpenDuration());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vn.vnpay.demo1_16092024.bean.config.RedisPipelineConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Micro-batching queue, flusher thread and connection for a single Redis node. Every command in
+ * a flush belongs to that node, so a batch never spans nodes. Meters carry a {@code node} tag.
+ */
+final class RedisNodePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisNodePipeline.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final String node;
+    private final Supplier<StatefulRedisConnection<String, byte[]>> connector;
+    private final boolean ownsConnection;
+    private final RedisPipelineConfig config;
+    private final BlockingQueue<PendingCommand<?>> queue;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer flushLatency;
+    private final DistributionSummary batchSize;
+
+    private Thread flusher;
+    private volatile boolean running;
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+
+    /**
+     * @param ownsConnection {@code false} when the connection is managed elsewhere, as the node
+     *                       connections of a Redis Cluster connection are, and must not be closed here
+     */
+    RedisNodePipeline(String node, Supplier<StatefulRedisConnection<String, byte[]>> connector, boolean ownsConnection,
+                      RedisPipelineConfig config, MeterRegistry meterRegistry) {
+        this.node = node;
+        this.connector = connector;
+        this.ownsConnection = ownsConnection;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        Tags tags = Tags.of("node", node);
+        Gauge.builder("payment.redis.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Redis commands waiting to be flushed")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("payment.redis.pipeline.in.flight", inFlight, AtomicInteger::get)
+                .description("Redis commands written but not yet acknowledged")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("payment.redis.connection.open", this, pipeline -> pipeline.isConnected() ? 1 : 0)
+                .description("Whether the pipelined Redis connection is established and open")
+                .tags(tags)
+                .register(meterRegistry);
+        flushLatency = Timer.builder("payment.redis.pipeline.flush.latency")
+                .description("Time from pipelined flush until every command in the batch is acknowledged")
+                .tags(tags)
+                .register(meterRegistry);
+        batchSize = DistributionSummary.builder("payment.redis.pipeline.batch.size")
+                .description("Commands written per pipelined flush")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    void start() {
+        try {
+            connection();
+        } catch (RuntimeException e) {
+            logger.warn("Redis node {} is not reachable yet, connecting on first command: {}", node, e.getMessage());
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "redis-pipeline-flusher-" + node);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        PendingCommand<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new RejectedExecutionException("Redis pipeline stopped"));
+        }
+        if (ownsConnection && connection != null) {
+            connection.close();
+        }
+    }
+
+    boolean offer(PendingCommand<?> pending) {
+        return running && queue.offer(pending);
+    }
+
+    String getNode() {
+        return node;
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    boolean isConnected() {
+        StatefulRedisConnection<String, byte[]> conn = connection;
+        return conn != null && conn.isOpen();
+    }
+
+    private void flushLoop() {
+        int maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        long lingerNanos = config.getLinger().toNanos();
+        List<PendingCommand<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingCommand<?> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    flushStragglers();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCommand<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error while flushing Redis pipeline to {}", node, e);
+                failAll(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingCommand<?>> batch) {
+        StatefulRedisConnection<String, byte[]> conn;
+        try {
+            conn = connection();
+        } catch (RuntimeException e) {
+            logger.error("Cannot connect to Redis node {}, failing {} pipelined command(s): {}", node, batch.size(), e.getMessage());
+            failAll(batch, e);
+            return;
+        }
+
+        RedisAsyncCommands<String, byte[]> commands = conn.async();
+        AtomicInteger outstanding = new AtomicInteger(batch.size());
+        long startNanos = System.nanoTime();
+        for (PendingCommand<?> pending : batch) {
+            try {
+                inFlight.incrementAndGet();
+                pending.dispatch(commands).whenComplete((value, error) -> {
+                    inFlight.decrementAndGet();
+                    if (outstanding.decrementAndGet() == 0) {
+                        flushLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                outstanding.decrementAndGet();
+                pending.result.completeExceptionally(e);
+            }
+        }
+        conn.flushCommands();
+        batchSize.record(batch.size());
+    }
+
+    /**
+     * Commands buffered while Lettuce reconnects are re-queued without a flush; push them out
+     * when the pipeline is idle rather than waiting for the next batch.
+     */
+    private void flushStragglers() {
+        StatefulRedisConnection<String, byte[]> conn = connection;
+        if (conn != null && inFlight.get() > 0 && conn.isOpen()) {
+            conn.flushCommands();
+        }
+    }
+
+    private StatefulRedisConnection<String, byte[]> connection() {
+        StatefulRedisConnection<String, byte[]> conn = connection;
+        if (conn == null) {
+            conn = connector.get();
+            conn.setAutoFlushCommands(false);
+            connection = conn;
+        }
+        return conn;
+    }
+
+    private static void failAll(List<PendingCommand<?>> batch, Throwable error) {
+        for (PendingCommand<?> pending : batch) {
+            pending.result.completeExceptionally(error);
+        }
+    }
+
+    static final class PendingCommand<T> {
+
+        private final Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        PendingCommand(Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command) {
+            this.command = command;
+        }
+
+        CompletableFuture<T> result() {
+            return result;
+        }
+
+        private RedisFuture<T> dispatch(RedisAsyncCommands<String, byte[]> commands) {
+            RedisFuture<T> future = command.apply(commands);
+            future.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            return future;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.RedisPipelineConfig;
+import vn.vnpay.demo1_16092024.bean.config.RedisShardingConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Micro-batches Redis commands from concurrent callers. Each command is routed by the hash slot
+ * of its key to the node serving it, and every node has its own {@link RedisNodePipeline}: a
+ * flusher thread that drains up to {@code maxBatchSize} commands, waiting at most
+ * {@code linger} for more, and writes them in one pipelined flush on a connection with
+ * auto-flush disabled. Each caller gets a future completed when Redis acknowledges its own
+ * command.
+ *
+ * <p>Nodes come from, in order: the Redis Cluster slot table when
+ * {@code spring.data.redis.cluster.nodes} is set, {@code payment.redis.sharding.nodes} (slots
+ * split evenly across independent nodes, as a fresh cluster would), or the single standalone
+ * node. Hash tags ({@code {...}}) are honoured in every mode.
+ */
+@Service
+public class RedisPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisPipeline.class);
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private static final long MIN_REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    private LettuceConnectionFactory connectionFactory;
+
+    @Autowired
+    private RedisPipelineConfig config;
+
+    @Autowired
+    private RedisShardingConfig shardingConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    private final Map<String, RedisNodePipeline> nodes = new ConcurrentHashMap<>();
+    private final AtomicLong lastTopologyRefresh = new AtomicLong(System.nanoTime() - MIN_REFRESH_INTERVAL_NANOS);
+
+    private RedisNodePipeline[] shards;
+    private RedisClusterClient clusterClient;
+    private volatile StatefulRedisClusterConnection<String, byte[]> clusterConnection;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+        running = true;
+        if (client instanceof RedisClusterClient cluster) {
+            clusterClient = cluster;
+            try {
+                clusterConnection();
+            } catch (RuntimeException e) {
+                logger.warn("Redis Cluster is not reachable yet, loading its slot table on first command: {}", e.getMessage());
+            }
+            logger.info("Redis pipeline routes commands by the Redis Cluster slot table");
+            return;
+        }
+        RedisClient redisClient = (RedisClient) client;
+        List<String> uris = shardingConfig.getNodes();
+        if (uris.isEmpty()) {
+            RedisStandaloneConfiguration standalone = connectionFactory.getStandaloneConfiguration();
+            shards = new RedisNodePipeline[]{
+                    node(standalone.getHostName() + ':' + standalone.getPort(), () -> redisClient.connect(CODEC), true)
+            };
+            return;
+        }
+        shards = new RedisNodePipeline[uris.size()];
+        for (int i = 0; i < shards.length; i++) {
+            RedisURI uri = RedisURI.create(uris.get(i));
+            shards[i] = node(uri.getHost() + ':' + uri.getPort(), () -> redisClient.connect(CODEC, uri), true);
+        }
+        logger.info("Redis pipeline shards {} hash slots across {} node(s)", SlotHash.SLOT_COUNT, shards.length);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (RedisNodePipeline node : nodes.values()) {
+            node.stop();
+        }
+        if (clusterConnection != null) {
+            clusterConnection.close();
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String key, Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command) {
+        return submit(key, command, config.getCommandTimeout());
+    }
+
+    /**
+     * Queues write {@code command}, which must only touch {@code key}, on the pipeline of the
+     * node serving that key, behind the {@link RedisCircuitBreaker}. Timeouts and errors other
+     * than redirects count as breaker failures; while the circuit is open the command fails fast.
+     */
+    public <T> CompletableFuture<T> submit(String key, Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command,
+                                           Duration timeout) {
+        return circuitBreaker.call(() -> routeAndEnqueue(key, command, timeout), true);
+    }
+
+    /**
+     * Like {@link #submit}, for a command that only reads; only its timeout counts as a breaker
+     * failure.
+     */
+    public <T> CompletableFuture<T> read(String key, Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command) {
+        return circuitBreaker.call(() -> routeAndEnqueue(key, command, config.getCommandTimeout()), false);
+    }
+
+    /**
+     * Round trip to every node, connecting to any not connected yet. In a Redis Cluster that is
+     * every upstream node of the slot table.
+     */
+    public CompletableFuture<Void> ping() {
+        List<RedisNodePipeline> targets = new ArrayList<>();
+        try {
+            if (clusterClient == null) {
+                targets.addAll(Arrays.asList(shards));
+            } else {
+                clusterConnection();
+                for (RedisClusterNode owner : clusterClient.getPartitions()) {
+                    if (owner.is(RedisClusterNode.NodeFlag.UPSTREAM)) {
+                        targets.add(clusterNode(owner));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.allOf(targets.stream()
+                .map(node -> circuitBreaker.call(() -> enqueue(node, RedisAsyncCommands::ping, config.getCommandTimeout()), false))
+                .toArray(CompletableFuture<?>[]::new));
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (RedisNodePipeline node : nodes.values()) {
+            depth += node.getQueueDepth();
+        }
+        return depth;
+    }
+
+    public boolean isConnected() {
+        Collection<RedisNodePipeline> pipelines = nodes.values();
+        return !pipelines.isEmpty() && pipelines.stream().allMatch(RedisNodePipeline::isConnected);
+    }
+
+    /**
+     * Whether keys are spread over several independent nodes by this pipeline rather than by a
+     * single node or a Redis Cluster.
+     */
+    public boolean isSharded() {
+        return shards != null && shards.length > 1;
+    }
+
+    /**
+     * Nodes that have a pipeline, as {@code host:port}. In a Redis Cluster a node gets one on the
+     * first command routed to it.
+     */
+    public List<String> getNodes() {
+        return new ArrayList<>(nodes.keySet());
+    }
+
+    private RedisNodePipeline route(String key) {
+        if (clusterClient == null) {
+            return shards.length == 1 ? shards[0] : shards[SlotHash.getSlot(key) * shards.length / SlotHash.SLOT_COUNT];
+        }
+        int slot = SlotHash.getSlot(key);
+        clusterConnection();
+        RedisClusterNode owner = clusterClient.getPartitions().getMasterBySlot(slot);
+        if (owner == null) {
+            throw new RedisException("No Redis Cluster node serves slot " + slot);
+        }
+        return clusterNode(owner);
+    }
+
+    private RedisNodePipeline clusterNode(RedisClusterNode owner) {
+        String host = owner.getUri().getHost();
+        int port = owner.getUri().getPort();
+        RedisNodePipeline node = nodes.get(host + ':' + port);
+        return node != null ? node : node(host + ':' + port, () -> clusterConnection().getConnection(host, port), false);
+    }
+
+    private <T> CompletableFuture<T> routeAndEnqueue(String key,
+                                                     Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command,
+                                                     Duration timeout) {
+        RedisNodePipeline node;
+        try {
+            node = route(key);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return enqueue(node, command, timeout);
+    }
+
+    private <T> CompletableFuture<T> enqueue(RedisNodePipeline node,
+                                             Function<RedisAsyncCommands<String, byte[]>, RedisFuture<T>> command,
+                                             Duration timeout) {
+        RedisNodePipeline.PendingCommand<T> pending = new RedisNodePipeline.PendingCommand<>(command);
+        if (!running || !node.offer(pending)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Redis pipeline queue is full"));
+        }
+        CompletableFuture<T> result = pending.result().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (clusterClient != null) {
+            result.whenComplete((value, error) -> refreshOnRedirect(error));
+        }
+        return result;
+    }
+
+    private RedisNodePipeline node(String name, Supplier<StatefulRedisConnection<String, byte[]>> connector,
+                                   boolean ownsConnection) {
+        return nodes.computeIfAbsent(name, key -> {
+            RedisNodePipeline node = new RedisNodePipeline(key, connector, ownsConnection, config, meterRegistry);
+            node.start();
+            return node;
+        });
+    }
+
+    private StatefulRedisClusterConnection<String, byte[]> clusterConnection() {
+        StatefulRedisClusterConnection<String, byte[]> conn = clusterConnection;
+        if (conn == null) {
+            synchronized (this) {
+                conn = clusterConnection;
+                if (conn == null) {
+                    conn = clusterClient.connect(CODEC);
+                    clusterConnection = conn;
+                }
+            }
+        }
+        return conn;
+    }
+
+    /**
+     * Node connections do not follow redirects, so a {@code MOVED} or {@code ASK} reply means the
+     * slot table is stale. Reload it, at most once a second; the caller's retry then goes to the
+     * new owner.
+     */
+    private void refreshOnRedirect(Throwable error) {
+        if (!isRedirect(error)) {
+            return;
+        }
+        long last = lastTopologyRefresh.get();
+        long now = System.nanoTime();
+        if (now - last >= MIN_REFRESH_INTERVAL_NANOS && lastTopologyRefresh.compareAndSet(last, now)) {
+            logger.info("Redis Cluster redirected a command ({}), refreshing the slot table", error.getMessage());
+            clusterClient.refreshPartitionsAsync();
+        }
+    }
+
+    static boolean isRedirect(Throwable error) {
+        return error instanceof RedisCommandExecutionException && error.getMessage() != null
+                && (error.getMessage().startsWith("MOVED") || error.getMessage().startsWith("ASK"));
+    }
+}
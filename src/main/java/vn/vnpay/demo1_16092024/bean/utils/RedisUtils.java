@@ -1,31 +1,133 @@
 package vn.vnpay.demo1_16092024.bean.utils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.SetArgs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.exception.RedisUnavailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 public class RedisUtils {
-    @Autowired StringRedisTemplate stringRedisTemplate;
+    @Autowired RedisPipeline redisPipeline;
+
+    @Autowired RedisWriteSpool redisWriteSpool;
 
-    @Autowired ObjectMapper objectMapper;
+    @Autowired RedisResilienceConfig resilienceConfig;
 
     private static final Logger logger = LoggerFactory.getLogger(RedisUtils.class);
 
-    public boolean putData(String bankCode, String tokenKey, String data){
-        try{
-            logger.info("Attempting to put data into Redis for tokenKey: {}, bankCode: {}", tokenKey, bankCode);
-            String jsonData = objectMapper.writeValueAsString(data);
-            stringRedisTemplate.opsForHash().put(tokenKey, bankCode, jsonData);
-            logger.info("Data successfully stored in Redis for tokenKey: {}, bankCode: {}", tokenKey, bankCode);
-            return true;
-        } catch (JsonProcessingException e) {
-            logger.error("Failed to convert data to JSON for tokenKey: {}, bankCode: {}. Error: {}", tokenKey, bankCode, e.getMessage());
-            return false;
+    private static final String OK = "OK";
+
+    private static final CompletableFuture<Boolean> STORED = CompletableFuture.completedFuture(true);
+
+    public boolean putData(String bankCode, String tokenKey, byte[] data, Duration ttl) {
+        return putDataAsync(bankCode, tokenKey, data, ttl).join();
+    }
+
+    /**
+     * Stores {@code data} under hash {@code tokenKey}, field {@code bankCode}. A positive
+     * {@code ttl} is applied to the whole hash with a {@code PEXPIRE} pipelined right behind the
+     * {@code HSET}. Each attempt is bounded by {@code writeTimeout}; once the attempts are used up
+     * or the circuit is open, the record goes to the {@link RedisWriteSpool} and counts as stored
+     * once it is on disk there. Completes with {@code false} only when the spool cannot take it
+     * either.
+     */
+    public CompletableFuture<Boolean> putDataAsync(String bankCode, String tokenKey, byte[] data, Duration ttl) {
+        logger.debug("Attempting to put data into Redis for tokenKey: {}, bankCode: {}", tokenKey, bankCode);
+        if (redisWriteSpool.hasPending()) {
+            return spool(bankCode, tokenKey, data, ttl, null);
+        }
+        return write(bankCode, tokenKey, data, ttl, 1).handle((created, error) -> {
+            if (error != null) {
+                return spool(bankCode, tokenKey, data, ttl, error);
+            }
+            logger.debug("Data successfully stored in Redis for tokenKey: {}, bankCode: {}", tokenKey, bankCode);
+            return STORED;
+        }).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Boolean> write(String bankCode, String tokenKey, byte[] data, Duration ttl, int attempt) {
+        Duration timeout = resilienceConfig.getWriteTimeout();
+        CompletableFuture<Boolean> stored = redisPipeline.submit(tokenKey, commands -> commands.hset(tokenKey, bankCode, data), timeout);
+        if (ttl != null && !ttl.isZero() && !ttl.isNegative()) {
+            CompletableFuture<Boolean> expiry = redisPipeline.submit(tokenKey, commands -> commands.pexpire(tokenKey, ttl.toMillis()), timeout);
+            stored = stored.thenCombine(expiry, (created, expired) -> created);
         }
+        if (attempt >= resilienceConfig.getMaxAttempts()) {
+            return stored;
+        }
+        return stored.exceptionallyCompose(error -> {
+            if (unwrap(error) instanceof RedisUnavailableException) {
+                return CompletableFuture.failedFuture(error);
+            }
+            Executor backoff = CompletableFuture.delayedExecutor(resilienceConfig.getRetryBackoff().toMillis(), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> attempt + 1, backoff)
+                    .thenCompose(next -> write(bankCode, tokenKey, data, ttl, next));
+        });
+    }
+
+    private CompletableFuture<Boolean> spool(String bankCode, String tokenKey, byte[] data, Duration ttl, Throwable error) {
+        return redisWriteSpool.append(bankCode, tokenKey, data, ttl).thenApply(spooled -> {
+            if (!spooled) {
+                logger.error("Failed to store data in Redis for tokenKey: {}, bankCode: {}. Error: {}", tokenKey, bankCode,
+                        error != null ? unwrap(error).toString() : "spool unavailable");
+            } else if (error != null && !(unwrap(error) instanceof RedisUnavailableException)) {
+                logger.warn("Redis write failed for tokenKey: {}, bankCode: {}, spooled for replay. Error: {}", tokenKey, bankCode, unwrap(error).toString());
+            }
+            return spooled;
+        });
+    }
+
+    public CompletableFuture<byte[]> getDataAsync(String bankCode, String tokenKey) {
+        return redisPipeline.read(tokenKey, commands -> commands.hget(tokenKey, bankCode));
+    }
+
+    /**
+     * Reads several banks' records of one hash with a single {@code HMGET}. The result lines up
+     * with {@code bankCodes}, holding {@code null} where a bank has no record.
+     */
+    public CompletableFuture<List<byte[]>> getDataAsync(List<String> bankCodes, String tokenKey) {
+        return redisPipeline.read(tokenKey, commands -> commands.hmget(tokenKey, bankCodes.toArray(new String[0])))
+                .thenApply(values -> values.stream().map(value -> value.getValueOrElse(null)).toList());
+    }
+
+    public CompletableFuture<Boolean> reserveAsync(String key, String value, Duration ttl) {
+        return redisPipeline.submit(key, commands -> commands.set(key, bytes(value), SetArgs.Builder.nx().px(ttl.toMillis())),
+                        resilienceConfig.getWriteTimeout())
+                .thenApply(OK::equals);
+    }
+
+    public CompletableFuture<Boolean> replaceKeepingTtlAsync(String key, String value) {
+        return redisPipeline.submit(key, commands -> commands.set(key, bytes(value), SetArgs.Builder.xx().keepttl()),
+                        resilienceConfig.getWriteTimeout())
+                .thenApply(OK::equals);
+    }
+
+    public CompletableFuture<String> getAsync(String key) {
+        return redisPipeline.read(key, commands -> commands.get(key))
+                .thenApply(value -> value != null ? new String(value, StandardCharsets.UTF_8) : null);
+    }
+
+    public CompletableFuture<Long> deleteAsync(String key) {
+        return redisPipeline.submit(key, commands -> commands.del(key));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
     }
 }
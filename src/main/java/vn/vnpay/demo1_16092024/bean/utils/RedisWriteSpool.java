@@ -0,0 +1,319 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.segment.MappedSegmentLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local write-ahead spool for payment records Redis could not take. Records are appended to a
+ * {@link MappedSegmentLog} and replayed in pipelined batches by a background thread once Redis
+ * answers again. An append completes only once its record is forced to disk; a sync thread
+ * woken by each append forces everything appended meanwhile in one go, so concurrent spooled
+ * writes share an fsync. The replayed position is
+ * checkpointed after each batch, so a crash replays at most one batch twice, which is harmless
+ * because the writes are idempotent {@code HSET}s.
+ */
+@Service
+public class RedisWriteSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisWriteSpool.class);
+
+    private static final String NAME = "redis-write";
+
+    private static final CompletableFuture<Boolean> NOT_SPOOLED = CompletableFuture.completedFuture(false);
+
+    @Autowired
+    private RedisResilienceConfig config;
+
+    @Autowired
+    private RedisPipeline redisPipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MappedSegmentLog log;
+    private Path checkpointFile;
+    private volatile long replayedPosition;
+    private volatile long syncedPosition;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Thread replayer;
+    private Thread syncer;
+    private volatile boolean running;
+
+    private Counter spooled;
+    private Counter replayed;
+    private Counter expired;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!config.isSpoolEnabled()) {
+            return;
+        }
+        Path directory = Paths.get(config.getSpoolDirectory());
+        log = MappedSegmentLog.open(directory, NAME, config.getSpoolSegmentSize());
+        checkpointFile = directory.resolve(NAME + ".checkpoint");
+        replayedPosition = Math.max(readCheckpoint(), log.startPosition());
+        syncedPosition = log.writePosition();
+
+        Gauge.builder("payment.redis.spool.pending", this, spool -> spool.pendingBytes())
+                .description("Spooled bytes not yet replayed to Redis")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        spooled = Counter.builder("payment.redis.spool.records").tag("result", "spooled")
+                .description("Payment records through the Redis write spool").register(meterRegistry);
+        replayed = Counter.builder("payment.redis.spool.records").tag("result", "replayed")
+                .description("Payment records through the Redis write spool").register(meterRegistry);
+        expired = Counter.builder("payment.redis.spool.records").tag("result", "expired")
+                .description("Payment records through the Redis write spool").register(meterRegistry);
+        if (hasPending()) {
+            logger.warn("{} bytes of spooled Redis writes pending replay in {}", pendingBytes(), directory.toAbsolutePath());
+        }
+
+        running = true;
+        syncer = new Thread(this::syncLoop, "redis-spool-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        replayer = new Thread(this::replayLoop, "redis-spool-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (log == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(syncer);
+        replayer.interrupt();
+        syncer.join(TimeUnit.SECONDS.toMillis(5));
+        replayer.join(TimeUnit.SECONDS.toMillis(5));
+        sync();
+        log.close();
+    }
+
+    public boolean isEnabled() {
+        return log != null;
+    }
+
+    /**
+     * Whether records are waiting for replay. New writes should go through the spool meanwhile
+     * so they are not overtaken by older spooled ones.
+     */
+    public boolean hasPending() {
+        return log != null && log.writePosition() > replayedPosition;
+    }
+
+    /**
+     * Appends a record for later replay. Completes with {@code true} once the record is on disk,
+     * and with {@code false} if the spool is disabled or the record cannot be written or forced.
+     */
+    public CompletableFuture<Boolean> append(String bankCode, String tokenKey, byte[] data, Duration ttl) {
+        if (log == null) {
+            return NOT_SPOOLED;
+        }
+        long expireAt = ttl != null && !ttl.isZero() && !ttl.isNegative() ? System.currentTimeMillis() + ttl.toMillis() : 0;
+        try {
+            Waiter waiter = append(encode(bankCode, tokenKey, expireAt, data));
+            LockSupport.unpark(syncer);
+            return waiter.durable().handle((synced, error) -> {
+                if (error != null) {
+                    logger.error("Cannot sync spooled record for tokenKey: {}, bankCode: {}. Error: {}", tokenKey, bankCode, error.toString());
+                    return false;
+                }
+                spooled.increment();
+                return true;
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Cannot spool record for tokenKey: {}, bankCode: {}. Error: {}", tokenKey, bankCode, e.toString());
+            return NOT_SPOOLED;
+        }
+    }
+
+    long pendingBytes() {
+        return log.writePosition() - replayedPosition;
+    }
+
+    private Waiter append(byte[] record) throws IOException {
+        appendLock.lock();
+        try {
+            long end = log.append(record);
+            // queued under the lock, so waiters stay in position order
+            Waiter waiter = new Waiter(end, new CompletableFuture<>());
+            waiters.add(waiter);
+            return waiter;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        long intervalNanos = config.getReplayInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            sync();
+        }
+    }
+
+    private void sync() {
+        long end = log.writePosition();
+        try {
+            if (end > syncedPosition) {
+                log.force();
+                syncedPosition = end;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Redis spool sync failed", e);
+            Waiter waiter;
+            while ((waiter = waiters.peek()) != null && waiter.position() <= end) {
+                waiters.poll();
+                waiter.durable().completeExceptionally(e);
+            }
+            return;
+        }
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null && waiter.position() <= syncedPosition) {
+            waiters.poll();
+            waiter.durable().complete(null);
+        }
+    }
+
+    private void replayLoop() {
+        while (running) {
+            try {
+                // keep draining without pausing while full batches succeed
+                if (!hasPending() || !replayBatch()) {
+                    Thread.sleep(config.getReplayInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Redis spool replay failed", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private boolean replayBatch() throws IOException {
+        int batchSize = Math.max(1, config.getReplayBatchSize());
+        List<CompletableFuture<?>> writes = new ArrayList<>(batchSize);
+        long end = replayedPosition;
+        int count = 0;
+        int expiredCount = 0;
+        try (MappedSegmentLog.Reader reader = log.reader(replayedPosition)) {
+            MappedSegmentLog.Record record;
+            while (count < batchSize && (record = reader.next()) != null) {
+                CompletableFuture<?> write = replay(ByteBuffer.wrap(record.getPayload()));
+                if (write != null) {
+                    writes.add(write);
+                } else {
+                    expiredCount++;
+                }
+                end = record.getNextPosition();
+                count++;
+            }
+        }
+        try {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+        } catch (RuntimeException e) {
+            logger.debug("Redis spool replay deferred: {}", e.toString());
+            return false;
+        }
+        replayed.increment(writes.size());
+        expired.increment(expiredCount);
+        commit(end);
+        logger.info("Replayed {} spooled Redis write(s), {} bytes pending", writes.size(), pendingBytes());
+        return count == batchSize;
+    }
+
+    private CompletableFuture<?> replay(ByteBuffer record) {
+        String bankCode = readString(record);
+        String tokenKey = readString(record);
+        long expireAt = record.getLong();
+        byte[] data = new byte[record.remaining()];
+        record.get(data);
+        if (expireAt == 0) {
+            return redisPipeline.submit(tokenKey, commands -> commands.hset(tokenKey, bankCode, data));
+        }
+        long ttlMillis = expireAt - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return null;
+        }
+        return redisPipeline.submit(tokenKey, commands -> commands.hset(tokenKey, bankCode, data))
+                .thenCombine(redisPipeline.submit(tokenKey, commands -> commands.pexpire(tokenKey, ttlMillis)), (created, set) -> created);
+    }
+
+    private void commit(long position) throws IOException {
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(position).array());
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        replayedPosition = position;
+        log.deleteBefore(position);
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(config.getReplayInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static byte[] encode(String bankCode, String tokenKey, long expireAt, byte[] data) {
+        byte[] bank = bankCode.getBytes(StandardCharsets.UTF_8);
+        byte[] token = tokenKey.getBytes(StandardCharsets.UTF_8);
+        if (bank.length > 0xFFFF || token.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key too long to spool");
+        }
+        return ByteBuffer.allocate(2 + bank.length + 2 + token.length + Long.BYTES + data.length)
+                .putShort((short) bank.length).put(bank)
+                .putShort((short) token.length).put(token)
+                .putLong(expireAt)
+                .put(data)
+                .array();
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Waiter(long position, CompletableFuture<Void> durable) {
+    }
+}
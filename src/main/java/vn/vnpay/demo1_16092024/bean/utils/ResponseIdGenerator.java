@@ -0,0 +1,81 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import vn.vnpay.demo1_16092024.bean.config.IdConfig;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style response IDs: milliseconds since the configured epoch, then a 10-bit node ID,
+ * then a 12-bit per-millisecond sequence. Time and sequence share one {@link AtomicLong} advanced
+ * with a single CAS, so IDs strictly increase per node without locking. A sequence overflow or a
+ * clock that steps back borrows from the following millisecond instead of waiting.
+ */
+@Service
+public class ResponseIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseIdGenerator.class);
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    @Autowired
+    private IdConfig config;
+
+    @Autowired
+    private Environment environment;
+
+    private final AtomicLong state = new AtomicLong();
+    private long nodeBits;
+    private long epochMillis;
+
+    @PostConstruct
+    public void init() {
+        Integer nodeId = config.getNodeId();
+        if (nodeId == null) {
+            // host name hashes collide too easily to share a Redis between instances
+            if (!environment.acceptsProfiles(Profiles.of("dev"))) {
+                throw new IllegalStateException("payment.id.nodeId must be set to a value unique to this instance");
+            }
+            nodeId = hostNodeId();
+            logger.warn("payment.id.nodeId is not set, using {} derived from the host name", nodeId);
+        } else if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("payment.id.nodeId must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        nodeBits = (long) nodeId << SEQUENCE_BITS;
+        epochMillis = config.getEpoch().toEpochMilli();
+    }
+
+    public String nextId() {
+        return Long.toString(nextLong());
+    }
+
+    public long nextLong() {
+        long now = (System.currentTimeMillis() - epochMillis) << SEQUENCE_BITS;
+        long current;
+        long next;
+        do {
+            current = state.get();
+            next = Math.max(current + 1, now);
+        } while (!state.compareAndSet(current, next));
+        return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | next & SEQUENCE_MASK;
+    }
+
+    private static int hostNodeId() {
+        try {
+            return Math.floorMod(InetAddress.getLocalHost().getHostName().hashCode(), MAX_NODE_ID + 1);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot derive payment.id.nodeId, set it explicitly", e);
+        }
+    }
+}
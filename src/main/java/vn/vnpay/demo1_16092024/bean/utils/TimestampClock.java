@@ -0,0 +1,33 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Second-resolution formatted clock. The formatted value is cached and rebuilt at most once per
+ * second; racing threads may format the same second twice, which is harmless.
+ */
+public final class TimestampClock {
+
+    private final DateTimeFormatter formatter;
+    private volatile Tick tick = new Tick(Long.MIN_VALUE, null);
+
+    public TimestampClock(String pattern, ZoneId zone) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+    }
+
+    public String now() {
+        long second = Math.floorDiv(System.currentTimeMillis(), 1000);
+        Tick current = tick;
+        if (current.second == second) {
+            return current.formatted;
+        }
+        String formatted = formatter.format(Instant.ofEpochSecond(second));
+        tick = new Tick(second, formatted);
+        return formatted;
+    }
+
+    private record Tick(long second, String formatted) {
+    }
+}
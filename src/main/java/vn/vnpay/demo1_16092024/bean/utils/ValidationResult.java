@@ -0,0 +1,54 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link PaymentRequestValidator#validate}: a bit per failed {@link FieldName}. A
+ * valid request always gets the shared {@link #VALID} instance.
+ */
+public final class ValidationResult {
+
+    public static final ValidationResult VALID = new ValidationResult(0);
+
+    private static final FieldName[] FIELD_NAMES = FieldName.values();
+
+    private final int failedMask;
+
+    ValidationResult(int failedMask) {
+        this.failedMask = failedMask;
+    }
+
+    static int bit(FieldName fieldName) {
+        return 1 << fieldName.ordinal();
+    }
+
+    public boolean isValid() {
+        return failedMask == 0;
+    }
+
+    public boolean hasFailed(FieldName fieldName) {
+        return (failedMask & bit(fieldName)) != 0;
+    }
+
+    public List<FieldName> getFailedFields() {
+        if (failedMask == 0) {
+            return Collections.emptyList();
+        }
+        List<FieldName> failedFields = new ArrayList<>(Integer.bitCount(failedMask));
+        for (FieldName fieldName : FIELD_NAMES) {
+            if (hasFailed(fieldName)) {
+                failedFields.add(fieldName);
+            }
+        }
+        return failedFields;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "VALID" : "INVALID" + getFailedFields();
+    }
+}
@@ -0,0 +1,41 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+
+import java.util.Collection;
+
+/**
+ * Per-bank validation rules compiled once when the bank registry is built: which fields may be
+ * left blank and the largest accepted debit amount.
+ */
+public final class ValidationRules {
+
+    public static final ValidationRules DEFAULT = new ValidationRules(0, Integer.MAX_VALUE);
+
+    private final int optionalMask;
+    private final int maxDebitAmount;
+
+    private ValidationRules(int optionalMask, int maxDebitAmount) {
+        this.optionalMask = optionalMask;
+        this.maxDebitAmount = maxDebitAmount;
+    }
+
+    public static ValidationRules of(Collection<FieldName> optionalFields, Integer maxDebitAmount) {
+        int optionalMask = 0;
+        if (optionalFields != null) {
+            for (FieldName fieldName : optionalFields) {
+                optionalMask |= ValidationResult.bit(fieldName);
+            }
+        }
+        int max = maxDebitAmount != null ? maxDebitAmount : Integer.MAX_VALUE;
+        return optionalMask == 0 && max == Integer.MAX_VALUE ? DEFAULT : new ValidationRules(optionalMask, max);
+    }
+
+    boolean isOptional(int fieldBit) {
+        return (optionalMask & fieldBit) != 0;
+    }
+
+    int getMaxDebitAmount() {
+        return maxDebitAmount;
+    }
+}
@@ -3,7 +3,7 @@ package vn.vnpay.demo1_16092024.bean;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "payment.id.nodeId=0")
 class Demo116092024ApplicationTests {
 
     @Test
@@ -0,0 +1,161 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.StorageConfig;
+import vn.vnpay.demo1_16092024.bean.constant.StorageCodec;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentCodecsTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PaymentCodecs codecs;
+
+    @BeforeEach
+    void setUp() {
+        codecs = new PaymentCodecs();
+        ReflectionTestUtils.setField(codecs, "config", new StorageConfig());
+        ReflectionTestUtils.setField(codecs, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(codecs, "meterRegistry", new SimpleMeterRegistry());
+        codecs.init();
+    }
+
+    @Test
+    void binaryRoundTripsEveryField() throws Exception {
+        PaymentRequest request = request();
+        request.setAdditionalData("{\"note\":\"Thanh toán hóa đơn\",\"items\":[" + "{\"sku\":\"A1\",\"qty\":1},".repeat(20) + "{}]}");
+        request.setDebitAmount(-1500);
+        request.setRespDesc(null);
+        request.setOrderCode("");
+
+        byte[] encoded = codecs.encode(request);
+
+        assertThat(BinaryPaymentCodec.isBinary(encoded)).isTrue();
+        assertThat(codecs.decode(encoded)).isEqualTo(request);
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() throws Exception {
+        PaymentRequest request = request();
+
+        assertThat(codecs.encode(request).length).isLessThan(objectMapper.writeValueAsBytes(request).length / 2);
+    }
+
+    @Test
+    void readsPlainAndDoubleEncodedJson() throws Exception {
+        PaymentRequest request = request();
+        String json = objectMapper.writeValueAsString(request);
+
+        assertThat(codecs.decode(json.getBytes(StandardCharsets.UTF_8))).isEqualTo(request);
+        assertThat(codecs.decode(objectMapper.writeValueAsBytes(json))).isEqualTo(request);
+    }
+
+    @Test
+    void jsonStoresAParsedBodyAsReceived() throws Exception {
+        StorageConfig config = new StorageConfig();
+        config.setCodec(StorageCodec.JSON);
+        ReflectionTestUtils.setField(codecs, "config", config);
+        codecs.init();
+        byte[] body = objectMapper.writeValueAsBytes(request());
+        PaymentRequestParser parser = new PaymentRequestParser(objectMapper.getFactory());
+
+        assertThat(codecs.encode(parser.parse(body))).isSameAs(body);
+        assertThat(codecs.encode(request())).isEqualTo(body);
+    }
+
+    @Test
+    void jsonReEncodesANonCanonicalBodyWithoutParserState() throws Exception {
+        StorageConfig config = new StorageConfig();
+        config.setCodec(StorageCodec.JSON);
+        ReflectionTestUtils.setField(codecs, "config", config);
+        codecs.init();
+        byte[] body = "{\"tokenKey\":\"token-1\",\"bankCode\":\"VNPAY\",\"debitAmount\":11200,\"channel\":\"web\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        ParsedPaymentRequest parsed = new PaymentRequestParser(objectMapper.getFactory()).parse(body);
+
+        byte[] encoded = codecs.encode(parsed);
+
+        assertThat(parsed.isCanonical()).isFalse();
+        assertThat(objectMapper.readTree(encoded).has("body")).isFalse();
+        assertThat(objectMapper.readTree(encoded).has("canonical")).isFalse();
+        assertThat(codecs.decode(encoded)).isEqualTo(parsed);
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedRecords() throws Exception {
+        byte[] encoded = codecs.encode(request());
+        byte[] future = encoded.clone();
+        future[1] = 2;
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 10);
+
+        assertThatThrownBy(() -> codecs.decode(future)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> codecs.decode(truncated)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsCompressedFieldsThatCannotHoldTheirLength() {
+        byte[] huge = compressedAdditionalData(1 << 30, 4);
+        byte[] overRatio = compressedAdditionalData(100_000, 4);
+        byte[] overRecord = compressedAdditionalData(1000, 400);
+
+        assertThatThrownBy(() -> codecs.decode(huge)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> codecs.decode(overRatio)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> codecs.decode(overRecord)).isInstanceOf(IOException.class);
+    }
+
+    /**
+     * A record whose first six fields are null and whose additionalData claims {@code length}
+     * bytes compressed into {@code compressedLength}, followed by four bytes of input.
+     */
+    private static byte[] compressedAdditionalData(long length, long compressedLength) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BinaryPaymentCodec.MAGIC);
+        out.write(BinaryPaymentCodec.VERSION);
+        out.writeBytes(new byte[6]);
+        writeVarint(out, length << 3 | 4);
+        writeVarint(out, compressedLength);
+        out.writeBytes(new byte[]{(byte) 0xF0, 0, 0, 0});
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static PaymentRequest request() {
+        PaymentRequest request = new PaymentRequest();
+        request.setTokenKey("token-1");
+        request.setApiID("restPayment");
+        request.setMobile("0912345678");
+        request.setBankCode("VNPAY");
+        request.setAccountNo("0001100014211002");
+        request.setPayDate("20240930103025");
+        request.setAdditionalData("{}");
+        request.setDebitAmount(11200);
+        request.setRespCode("00");
+        request.setRespDesc("SUCCESS");
+        request.setTraceTransfer("FT19070878181");
+        request.setMessageType("1");
+        request.setCheckSum("5d3f0c0a5e8f1b2c3d4e5f60718293a4b5c6d7e8f90112233445566778899aab");
+        request.setOrderCode("FT19070878181");
+        request.setUserName("cntest001");
+        request.setRealAmount("11200");
+        request.setPromotionCode("PROMO01");
+        return request;
+    }
+}
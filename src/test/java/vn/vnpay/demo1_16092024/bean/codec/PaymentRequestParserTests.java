@@ -0,0 +1,99 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.HmacSha256Signer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentRequestParserTests {
+
+    private static final String BODY = "{\"tokenKey\":\"token-1\",\"apiID\":\"restPayment\",\"mobile\":\"0912345678\","
+            + "\"bankCode\":\"VNPAY\",\"accountNo\":\"0001100014211002\",\"payDate\":\"20240930103025\","
+            + "\"additionalData\":\"{\\\"note\\\":\\\"x\\\"}\",\"debitAmount\":11200,\"respCode\":\"00\","
+            + "\"respDesc\":\"Thanh toán\",\"traceTransfer\":\"FT19070878181\",\"messageType\":\"1\","
+            + "\"checkSum\":\"abc\",\"orderCode\":\"FT19070878181\",\"userName\":\"cntest001\","
+            + "\"realAmount\":\"11200\",\"promotionCode\":null}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentRequestParser parser = new PaymentRequestParser(objectMapper.getFactory());
+
+    @Test
+    void readsTheSameRequestAsDataBinding() throws Exception {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+
+        ParsedPaymentRequest parsed = parser.parse(body);
+
+        assertThat(parsed).isEqualTo(objectMapper.readValue(body, PaymentRequest.class));
+        assertThat(parsed.getBody()).isSameAs(body);
+        assertThat(parsed.isCanonical()).isTrue();
+    }
+
+    @Test
+    void signsFromTheBodyLikeFromTheStrings() throws Exception {
+        String body = BODY.replace("\"accountNo\":\"0001100014211002\"", "\"accountNo\":\"Số 1\\t\\u0041\"")
+                .replace("\"mobile\":\"0912345678\"", "\"mobile\" :  \"0912345678\"");
+        ParsedPaymentRequest parsed = parser.parse(body.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(parsed.getAccountNo()).isEqualTo("Số 1\tA");
+        assertThat(sign(parsed, true)).isEqualTo(sign(parsed, false));
+    }
+
+    @Test
+    void coercesScalarsAndFlagsBodiesWithUnknownFields() throws Exception {
+        String body = BODY.replace("\"debitAmount\":11200", "\"debitAmount\":\"11200\"")
+                .replace("\"realAmount\":\"11200\"", "\"realAmount\":11200")
+                .replace("{\"tokenKey\"", "{\"extra\":{\"nested\":[1,2]},\"tokenKey\"");
+
+        ParsedPaymentRequest parsed = parser.parse(body.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(parsed.getDebitAmount()).isEqualTo(11200);
+        assertThat(parsed.getRealAmount()).isEqualTo("11200");
+        assertThat(parsed.isCanonical()).isFalse();
+    }
+
+    @Test
+    void fallsBackToStringsForNonUtf8Bodies() throws Exception {
+        ParsedPaymentRequest parsed = parser.parse(BODY.getBytes(StandardCharsets.UTF_16));
+
+        assertThat(parsed.getRespDesc()).isEqualTo("Thanh toán");
+        assertThat(parsed.isCanonical()).isFalse();
+        assertThat(sign(parsed, true)).isEqualTo(sign(parsed, false));
+    }
+
+    @Test
+    void rejectsMalformedBodies() {
+        assertThatThrownBy(() -> parser.parse("[]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> parser.parse("{\"mobile\":{}}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> parser.parse("{\"debitAmount\":\"ten\"}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> parser.parse((BODY + "{}").getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+
+    private static String sign(ParsedPaymentRequest request, boolean fromBody) throws Exception {
+        HmacSha256Signer.Session session = new HmacSha256Signer("ghffffffffff").begin();
+        for (FieldName field : new FieldName[]{FieldName.MOBILE, FieldName.BANK_CODE, FieldName.ACCOUNT_NO, FieldName.PAY_DATE}) {
+            String value = switch (field) {
+                case MOBILE -> request.getMobile();
+                case BANK_CODE -> request.getBankCode();
+                case ACCOUNT_NO -> request.getAccountNo();
+                default -> request.getPayDate();
+            };
+            if (fromBody) {
+                request.update(session, field, value);
+            } else {
+                session.update(value);
+            }
+        }
+        return session.doFinalHex();
+    }
+}
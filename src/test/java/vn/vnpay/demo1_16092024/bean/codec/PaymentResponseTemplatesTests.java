@@ -0,0 +1,39 @@
+package vn.vnpay.demo1_16092024.bean.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentErrorCode;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentResponseTemplatesTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentResponseTemplates templates = new PaymentResponseTemplates(objectMapper);
+
+    @Test
+    void writesTheSameBytesAsJacksonForEveryCode() throws Exception {
+        for (PaymentErrorCode code : PaymentErrorCode.values()) {
+            PaymentResponse unsigned = new PaymentResponse(code.getCode(), code.getMessage(),
+                    "370096428605468672", "20241018063104", null);
+            PaymentResponse signed = new PaymentResponse(code.getCode(), code.getMessage(),
+                    "370096428605468672", "20241018063104", "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+
+            assertThat(new String(templates.write(unsigned))).isEqualTo(objectMapper.writeValueAsString(unsigned));
+            assertThat(new String(templates.write(signed))).isEqualTo(objectMapper.writeValueAsString(signed));
+        }
+    }
+
+    @Test
+    void fallsBackToJacksonForResponsesOffTheTemplates() throws Exception {
+        PaymentResponse customMessage = new PaymentResponse("99", "Redis down", "1", "20241018063104", null);
+        PaymentResponse unknownCode = new PaymentResponse("42", "Other", "1", "20241018063104", null);
+        PaymentResponse needsEscaping = new PaymentResponse("00", "Success", "a\"b", "thời gian", null);
+        PaymentResponse missingValues = new PaymentResponse("01", "Invalid Input Data", null, null, null);
+
+        for (PaymentResponse response : new PaymentResponse[]{customMessage, unknownCode, needsEscaping, missingValues}) {
+            assertThat(templates.write(response)).isEqualTo(objectMapper.writeValueAsBytes(response));
+        }
+    }
+}
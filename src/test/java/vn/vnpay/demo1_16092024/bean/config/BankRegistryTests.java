@@ -0,0 +1,144 @@
+package vn.vnpay.demo1_16092024.bean.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.constant.AdmissionResult;
+import vn.vnpay.demo1_16092024.bean.utils.BankLimiter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BankRegistryTests {
+
+    @TempDir
+    Path directory;
+
+    private BankConfig bankConfig;
+    private BankRegistry bankRegistry;
+
+    @BeforeEach
+    void setUp() {
+        bankConfig = new BankConfig();
+        bankConfig.setBankList(List.of(bank("VNPAY", "ghffffffffff")));
+        bankRegistry = new BankRegistry();
+        ReflectionTestUtils.setField(bankRegistry, "bankConfig", bankConfig);
+        ReflectionTestUtils.setField(bankRegistry, "idempotencyConfig", new IdempotencyConfig());
+        ReflectionTestUtils.setField(bankRegistry, "storageConfig", new StorageConfig());
+        bankRegistry.init();
+    }
+
+    @Test
+    void refusesUnusableConfigurationsAndKeepsThePreviousBanks() {
+        assertThatThrownBy(() -> bankRegistry.reload(new BankConfig())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bankRegistry.reload(config(bank("BIDV", null)))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bankRegistry.reload(config(bank("BIDV", "jjjjjjjj"), bank("BIDV", "kkkkkkkk"))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(bankRegistry.getBankCodes()).containsExactly("VNPAY");
+    }
+
+    @Test
+    void refreshesFromTheReloadFileOnly() throws IOException {
+        assertThatThrownBy(bankRegistry::refresh).isInstanceOf(IllegalStateException.class);
+
+        Path file = directory.resolve("banks.yml");
+        bankConfig.setReloadFile(file.toString());
+        Files.writeString(file, banksYaml("BIDV"));
+        bankRegistry.refresh();
+
+        assertThat(bankRegistry.getBankCodes()).containsExactly("BIDV");
+        assertThat(bankRegistry.find("BIDV").getSigner()).isNotNull();
+    }
+
+    @Test
+    void keepsTheRegistryWhenTheReloadFileIsEmptyOrTruncated() throws IOException {
+        Path file = directory.resolve("banks.yml");
+        bankConfig.setReloadFile(file.toString());
+
+        Files.writeString(file, "");
+        assertThatThrownBy(bankRegistry::refresh).isInstanceOf(IllegalArgumentException.class);
+        String yaml = banksYaml("BIDV");
+        Files.writeString(file, yaml.substring(0, yaml.indexOf("privateKey")));
+        assertThatThrownBy(bankRegistry::refresh).isInstanceOf(IllegalArgumentException.class);
+        Files.writeString(file, "banks:\n  bankList: [");
+        assertThatThrownBy(bankRegistry::refresh).isInstanceOf(RuntimeException.class);
+        Files.delete(file);
+        assertThatThrownBy(bankRegistry::refresh).isInstanceOf(IOException.class);
+
+        assertThat(bankRegistry.getBankCodes()).containsExactly("VNPAY");
+    }
+
+    @Test
+    void keepsTheLimiterOfBanksWhoseLimitsDidNotChange() {
+        BankConfig.Bank limited = bank("VNPAY", "ghffffffffff");
+        limited.setRatePerSecond(0.001);
+        limited.setBurst(1);
+        limited.setMaxConcurrent(5);
+        bankRegistry.reload(config(limited));
+        BankLimiter limiter = bankRegistry.find("VNPAY").getLimiter();
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+
+        limited.setDuplicateWindow(Duration.ofMinutes(1));
+        bankRegistry.reload(config(limited, bank("BIDV", "jjjjjjjj")));
+
+        assertThat(bankRegistry.find("VNPAY").getLimiter()).isSameAs(limiter);
+        assertThat(bankRegistry.find("VNPAY").getLimiter().tryAcquire()).isEqualTo(AdmissionResult.RATE_LIMITED);
+        assertThat(bankRegistry.find("VNPAY").getLimiter().getInFlight()).isEqualTo(1);
+
+        limited.setBurst(2);
+        bankRegistry.reload(config(limited));
+
+        assertThat(bankRegistry.find("VNPAY").getLimiter()).isNotSameAs(limiter);
+    }
+
+    @Test
+    void watcherReloadsWhenTheFileChanges() throws Exception {
+        Path file = directory.resolve("banks.yml");
+        Files.writeString(file, banksYaml("BIDV"));
+        bankConfig.setReloadFile(file.toString());
+        BankConfigWatcher watcher = new BankConfigWatcher();
+        ReflectionTestUtils.setField(watcher, "bankConfig", bankConfig);
+        ReflectionTestUtils.setField(watcher, "bankRegistry", bankRegistry);
+        watcher.start();
+        try {
+            assertThat(bankRegistry.getBankCodes()).containsExactly("BIDV");
+
+            Files.writeString(file, "");
+            Files.writeString(file, banksYaml("SCB"));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (bankRegistry.find("SCB") == null && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(bankRegistry.getBankCodes()).containsExactly("SCB");
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    private static String banksYaml(String bankCode) {
+        return "banks:\n  bankList:\n    - bankCode: " + bankCode + "\n      privateKey: jjjjjjjj\n      duplicateWindow: 5m\n";
+    }
+
+    private static BankConfig config(BankConfig.Bank... banks) {
+        BankConfig config = new BankConfig();
+        config.setBankList(List.of(banks));
+        return config;
+    }
+
+    private static BankConfig.Bank bank(String bankCode, String privateKey) {
+        BankConfig.Bank bank = new BankConfig.Bank();
+        bank.setBankCode(bankCode);
+        bank.setPrivateKey(privateKey);
+        return bank;
+    }
+}
@@ -0,0 +1,185 @@
+package vn.vnpay.demo1_16092024.bean.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "payment.batch.maxSize=3",
+        "payment.id.nodeId=0",
+        "banks.bankList[0].bankCode=VNPAY",
+        "banks.bankList[0].privateKey=ghffffffffff",
+        "banks.bankList[0].ratePerSecond=1",
+        "banks.bankList[0].burst=" + ReactivePaymentControllerTests.BURST,
+        "banks.bankList[0].maxConcurrent=" + ReactivePaymentControllerTests.BURST,
+        "banks.bankList[1].bankCode=BIDV",
+        "banks.bankList[1].privateKey=jjjjjjjj",
+        "banks.bankList[1].bulkhead=narrow",
+        "payment.bulkhead.tiers.narrow.threads=1",
+        "payment.bulkhead.tiers.narrow.queueCapacity=1",
+        "payment.bulkhead.tiers.narrow.queueTimeout=1ms",
+        "payment.bulkhead.tiers.narrow.maxConcurrent=2"
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactivePaymentControllerTests {
+
+    static final int BURST = 4;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void rejectsTamperedChecksumWithoutTouchingRedis() {
+        webTestClient.post().uri("/api/process")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request("0".repeat(64)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("03")
+                .jsonPath("$.checkSum").doesNotExist();
+    }
+
+    @Test
+    void reportsInvalidFieldsAsInvalidInput() {
+        Map<String, Object> body = request("0".repeat(64));
+        body.put("mobile", "12");
+
+        webTestClient.post().uri("/api/process")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("01");
+    }
+
+    @Test
+    void answersEachBatchItemInOrder() {
+        Map<String, Object> invalid = request("0".repeat(64));
+        invalid.put("mobile", "12");
+        Map<String, Object> unknownBank = request("0".repeat(64));
+        unknownBank.put("bankCode", "NOPE");
+
+        webTestClient.post().uri("/api/process/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(request("0".repeat(64)), invalid, unknownBank))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].code").isEqualTo("03")
+                .jsonPath("$[1].code").isEqualTo("01")
+                .jsonPath("$[2].code").isEqualTo("02");
+    }
+
+    @Test
+    void answersLookupsOfUnknownBanksWithoutTouchingRedis() {
+        webTestClient.post().uri("/api/payment/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(Map.of("bankCode", "NOPE", "tokenKey", "tk-1"), Map.of("bankCode", "BIDV")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].code").isEqualTo("02")
+                .jsonPath("$[1].code").isEqualTo("01")
+                .jsonPath("$[1].payment").doesNotExist();
+    }
+
+    @Test
+    void rejectsBatchesOverTheConfiguredSize() {
+        webTestClient.post().uri("/api/process/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Collections.nCopies(4, request("0".repeat(64))))
+                .exchange()
+                .expectStatus().isEqualTo(413)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("01");
+    }
+
+    @Test
+    void streamsOneResponseLinePerRequestLine() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> invalid = request("0".repeat(64));
+        invalid.put("mobile", "12");
+        String body = objectMapper.writeValueAsString(request("0".repeat(64))) + "\n"
+                + objectMapper.writeValueAsString(invalid) + "\n";
+
+        webTestClient.post().uri("/api/process/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PaymentResponse.class)
+                .value(responses -> assertThat(responses).extracting(PaymentResponse::getCode)
+                        .containsExactly("03", "01"));
+    }
+
+    @Test
+    void streamsEveryRecordPastTheBankRate() throws Exception {
+        assertStreamAnswersEveryRecord(request("0".repeat(64)), BURST * 10);
+    }
+
+    @Test
+    void streamsEveryRecordPastTheBankBulkhead() throws Exception {
+        Map<String, Object> request = request("0".repeat(64));
+        request.put("bankCode", "BIDV");
+
+        assertStreamAnswersEveryRecord(request, 64);
+    }
+
+    private void assertStreamAnswersEveryRecord(Map<String, Object> request, int records) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            body.append(objectMapper.writeValueAsString(request)).append('\n');
+        }
+
+        webTestClient.post().uri("/api/process/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PaymentResponse.class)
+                .value(responses -> assertThat(responses).hasSize(records)
+                        .extracting(PaymentResponse::getCode).containsOnly("03"));
+    }
+
+    private static Map<String, Object> request(String checkSum) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("tokenKey", "token-1");
+        body.put("apiID", "restPayment");
+        body.put("mobile", "0912345678");
+        body.put("bankCode", "VNPAY");
+        body.put("accountNo", "0001100014211002");
+        body.put("payDate", "20240930103025");
+        body.put("additionalData", "{}");
+        body.put("debitAmount", 11200);
+        body.put("respCode", "00");
+        body.put("respDesc", "SUCCESS");
+        body.put("traceTransfer", "FT19070878181");
+        body.put("messageType", "1");
+        body.put("checkSum", checkSum);
+        body.put("orderCode", "FT19070878181");
+        body.put("userName", "cntest001");
+        body.put("realAmount", "11200");
+        body.put("promotionCode", "PROMO01");
+        return body;
+    }
+}
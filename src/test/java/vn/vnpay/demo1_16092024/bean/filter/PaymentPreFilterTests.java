@@ -0,0 +1,128 @@
+package vn.vnpay.demo1_16092024.bean.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.BankConfig;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+import vn.vnpay.demo1_16092024.bean.config.IdConfig;
+import vn.vnpay.demo1_16092024.bean.config.IdempotencyConfig;
+import vn.vnpay.demo1_16092024.bean.config.PreFilterConfig;
+import vn.vnpay.demo1_16092024.bean.config.StorageConfig;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentMetrics;
+import vn.vnpay.demo1_16092024.bean.utils.ResponseIdGenerator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentPreFilterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PaymentPreFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        BankConfig.Bank bank = new BankConfig.Bank();
+        bank.setBankCode("VNPAY");
+        bank.setPrivateKey("ghffffffffff");
+        BankConfig bankConfig = new BankConfig();
+        bankConfig.setBankList(List.of(bank));
+        BankRegistry bankRegistry = new BankRegistry();
+        ReflectionTestUtils.setField(bankRegistry, "idempotencyConfig", new IdempotencyConfig());
+        ReflectionTestUtils.setField(bankRegistry, "storageConfig", new StorageConfig());
+        bankRegistry.reload(bankConfig);
+
+        PaymentMetrics metrics = new PaymentMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(metrics, "bankRegistry", bankRegistry);
+        metrics.init();
+        ResponseIdGenerator responseIdGenerator = new ResponseIdGenerator();
+        IdConfig idConfig = new IdConfig();
+        idConfig.setNodeId(0);
+        ReflectionTestUtils.setField(responseIdGenerator, "config", idConfig);
+        responseIdGenerator.init();
+        PreFilterConfig config = new PreFilterConfig();
+        config.setMaxBodySize(64);
+
+        filter = new PaymentPreFilter();
+        ReflectionTestUtils.setField(filter, "config", config);
+        ReflectionTestUtils.setField(filter, "bankRegistry", bankRegistry);
+        ReflectionTestUtils.setField(filter, "responseIdGenerator", responseIdGenerator);
+        ReflectionTestUtils.setField(filter, "paymentMetrics", metrics);
+        ReflectionTestUtils.setField(filter, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        filter.init();
+    }
+
+    @Test
+    void passesAKnownBankOnWithTheBodyStillReadable() throws Exception {
+        String body = "{\"tokenKey\":\"t\",\"extra\":{\"bankCode\":\"NOPE\"},\"bankCode\":\"VNPAY\"}";
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(post(body), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(chain.getRequest().getContentLength()).isEqualTo(body.length());
+        assertThat(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                .isEqualTo(body);
+    }
+
+    @Test
+    void answersEachRejectionWithItsCodeAndStatus() throws Exception {
+        assertRejected("{\"bankCode\":\"NOPE\"}", 200, "02", "unknown_bank");
+        assertRejected("{\"tokenKey\":\"t\"}", 200, "01", "missing_bank_code");
+        assertRejected("{\"bankCode\":", 400, "01", "malformed");
+        assertRejected("[1,2]", 400, "01", "malformed");
+        assertRejected("", 400, "01", "empty");
+        assertRejected("{\"bankCode\":\"" + "x".repeat(64) + "\"}", 413, "01", "too_large");
+    }
+
+    @Test
+    void leavesOtherEndpointsAndContentTypesAlone() throws Exception {
+        MockHttpServletRequest batch = post("junk");
+        batch.setServletPath("/api/process/batch");
+        MockHttpServletRequest ndjson = post("junk");
+        ndjson.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        for (MockHttpServletRequest request : List.of(batch, ndjson)) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertThat(chain.getRequest()).isSameAs(request);
+        }
+    }
+
+    private void assertRejected(String body, int status, String code, String reason) throws Exception {
+        double before = rejected(reason);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(post(body), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(status);
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(objectMapper.readTree(response.getContentAsByteArray()).get("code").asText()).isEqualTo(code);
+        assertThat(rejected(reason)).isEqualTo(before + 1);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("payment.prefilter.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static MockHttpServletRequest post(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PaymentPreFilter.PROCESS_PATH);
+        request.setServletPath(PaymentPreFilter.PROCESS_PATH);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
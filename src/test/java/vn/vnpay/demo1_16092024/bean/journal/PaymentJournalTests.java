@@ -0,0 +1,192 @@
+package vn.vnpay.demo1_16092024.bean.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.JournalConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.exception.JournalIntegrityException;
+import vn.vnpay.demo1_16092024.bean.segment.MappedSegmentLog;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+class PaymentJournalTests {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    private final List<PaymentJournal> journals = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (PaymentJournal journal : journals) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void readsEntriesBackAcrossSegmentsAndReopens() throws Exception {
+        PaymentJournal journal = journal(false);
+        for (int i = 0; i < 10; i++) {
+            append(journal, i);
+        }
+        journal.stop();
+        journals.remove(journal);
+
+        PaymentJournal reopened = journal(false);
+        for (int i = 10; i < 20; i++) {
+            append(reopened, i);
+        }
+
+        List<JournalEntry> entries = readAll(reopened.reader());
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(entries).extracting(JournalEntry::getSequence)
+                .containsExactlyElementsOf(Stream.iterate(1L, i -> i + 1).limit(20).toList());
+        JournalEntry fifth = entries.get(4);
+        assertThat(fifth.getTokenKey()).isEqualTo("token-4");
+        assertThat(new String(fifth.getRequest(), StandardCharsets.UTF_8)).isEqualTo("record-4");
+        assertThat(fifth.getResponse()).isEqualTo(response(4));
+        assertThat(readAll(reopened.readerAfter(entries.get(14)))).extracting(JournalEntry::getSequence)
+                .containsExactly(16L, 17L, 18L, 19L, 20L);
+    }
+
+    @Test
+    void reportsAnEntryEditedOnDisk() throws Exception {
+        PaymentJournal journal = journal(false);
+        for (int i = 0; i < 3; i++) {
+            append(journal, i);
+        }
+        long position = readAll(journal.reader()).get(1).getPosition();
+
+        // rewrite a byte of the second entry's response and fix the segment CRC, as a tamperer would
+        Path segment = segmentFiles().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(position);
+            int length = file.readInt();
+            byte[] payload = new byte[length];
+            file.seek(position + 8);
+            file.readFully(payload);
+            payload[length - JournalFormat.MAC_SIZE - 1] ^= 1;
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            file.seek(position + 4);
+            file.writeInt((int) crc.getValue());
+            file.write(payload);
+        }
+
+        try (JournalReader reader = journal.reader()) {
+            assertThat(reader.next().getSequence()).isEqualTo(1);
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(JournalIntegrityException.class)
+                    .hasMessageContaining("hash chain");
+        }
+    }
+
+    @Test
+    void awaitSyncCompletesOnceTheEntryIsForced() throws Exception {
+        PaymentJournal journal = journal(true);
+
+        CompletableFuture<Void> durable = append(journal, 0);
+
+        durable.get(1, TimeUnit.SECONDS);
+        assertThat(ReflectionTestUtils.getField(journal, "syncedPosition"))
+                .isEqualTo(readAll(journal.reader()).get(0).getNextPosition());
+    }
+
+    @Test
+    void awaitSyncReleasesWaitersWhenTheForceFails() throws Exception {
+        PaymentJournal journal = journal(true);
+        MappedSegmentLog log = spy((MappedSegmentLog) ReflectionTestUtils.getField(journal, "log"));
+        doThrow(new UncheckedIOException(new IOException("disk gone"))).when(log).force();
+        ReflectionTestUtils.setField(journal, "log", log);
+
+        CompletableFuture<Void> durable = append(journal, 0);
+
+        durable.get(3, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("payment.journal.entries").tag("result", "failed").counter().count())
+                .isEqualTo(1);
+        assertThat(ReflectionTestUtils.getField(journal, "syncedPosition")).isEqualTo(0L);
+    }
+
+    @Test
+    void refusesToStartWithoutAKey() {
+        JournalConfig config = config(false);
+        config.setKey("");
+        PaymentJournal journal = new PaymentJournal();
+        ReflectionTestUtils.setField(journal, "config", config);
+
+        assertThatThrownBy(journal::start).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("payment.journal.key");
+    }
+
+    private PaymentJournal journal(boolean awaitSync) throws Exception {
+        PaymentJournal journal = new PaymentJournal();
+        ReflectionTestUtils.setField(journal, "config", config(awaitSync));
+        ReflectionTestUtils.setField(journal, "meterRegistry", meterRegistry);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private JournalConfig config(boolean awaitSync) {
+        JournalConfig config = new JournalConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setSegmentSize(SEGMENT_SIZE);
+        config.setCommitInterval(Duration.ofMillis(awaitSync ? 1000 : 5));
+        config.setAwaitSync(awaitSync);
+        config.setKey("journal-test-key");
+        return config;
+    }
+
+    private static CompletableFuture<Void> append(PaymentJournal journal, int i) {
+        PaymentRequest request = new PaymentRequest();
+        request.setBankCode("VNPAY");
+        request.setTokenKey("token-" + i);
+        return journal.append(request, ("record-" + i).getBytes(StandardCharsets.UTF_8), response(i));
+    }
+
+    private static PaymentResponse response(int i) {
+        return new PaymentResponse("00", "Success", "id-" + i, "20240930103025", "checksum-" + i);
+    }
+
+    private static List<JournalEntry> readAll(JournalReader reader) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        try (reader) {
+            JournalEntry entry;
+            while ((entry = reader.next()) != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package vn.vnpay.demo1_16092024.bean.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedSegmentLogTests {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRecordsBackAcrossRotatedSegments() throws IOException {
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            for (int i = 0; i < 20; i++) {
+                log.append(record(i));
+            }
+
+            assertThat(segmentFiles()).hasSizeGreaterThan(1);
+            assertThat(readAll(log, log.startPosition())).containsExactly(expected(0, 20));
+        }
+    }
+
+    @Test
+    void resumesAfterTheLastIntactRecordOnReopen() throws IOException {
+        long end;
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            log.append(record(0));
+            end = log.append(record(1));
+        }
+        // a torn append: length written, checksum and payload missing
+        Path segment = segmentFiles().get(segmentFiles().size() - 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 12), end % SEGMENT_SIZE);
+        }
+
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            assertThat(log.writePosition()).isEqualTo(end);
+            log.append(record(2));
+
+            assertThat(readAll(log, 0)).containsExactly(expected(0, 3));
+        }
+    }
+
+    @Test
+    void recoversFromAnAllocationCutShort() throws IOException {
+        long end;
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            end = log.append(record(0));
+        }
+        // a segment allocated in place and cut off mid-fill, and a leftover temporary file
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(end + 16);
+        }
+        Files.write(directory.resolve("test-00000000000000000256.seg.tmp"), new byte[10]);
+
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            assertThat(log.writePosition()).isEqualTo(end);
+            assertThat(Files.size(segment)).isEqualTo(SEGMENT_SIZE);
+            assertThat(segmentFiles()).containsExactly(segment);
+            for (int i = 1; i < 20; i++) {
+                log.append(record(i));
+            }
+
+            assertThat(readAll(log, 0)).containsExactly(expected(0, 20));
+        }
+    }
+
+    @Test
+    void readerRejectsARecordThatFailsItsChecksum() throws IOException {
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            long end = log.append(record(0));
+            log.append(record(1));
+            try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {'X'}), end + MappedSegmentLog.RECORD_HEADER_SIZE);
+            }
+
+            try (MappedSegmentLog.Reader reader = log.reader(0)) {
+                assertThat(reader.next().getPayload()).isEqualTo(record(0));
+                assertThatThrownBy(reader::next).isInstanceOf(IOException.class).hasMessageContaining("checksum");
+            }
+        }
+    }
+
+    @Test
+    void readerStopsAtTheWriterAndPicksUpLaterAppends() throws IOException {
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE);
+             MappedSegmentLog.Reader reader = log.reader(0)) {
+            log.append(record(0));
+            assertThat(reader.next().getPayload()).isEqualTo(record(0));
+            assertThat(reader.next()).isNull();
+
+            log.append(record(1));
+            assertThat(reader.next().getPayload()).isEqualTo(record(1));
+        }
+    }
+
+    @Test
+    void deletesOnlySegmentsWhollyBeforeThePosition() throws IOException {
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            List<Long> ends = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                ends.add(log.append(record(i)));
+            }
+            int before = segmentFiles().size();
+
+            log.deleteBefore(ends.get(9));
+
+            assertThat(segmentFiles()).hasSizeLessThan(before);
+            assertThat(readAll(log, ends.get(9))).containsExactly(expected(10, 20));
+        }
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() throws IOException {
+        try (MappedSegmentLog log = MappedSegmentLog.open(directory, "test", SEGMENT_SIZE)) {
+            assertThatThrownBy(() -> log.append(new byte[SEGMENT_SIZE])).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> log.append(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<String> readAll(MappedSegmentLog log, long position) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (MappedSegmentLog.Reader reader = log.reader(position)) {
+            MappedSegmentLog.Record record;
+            while ((record = reader.next()) != null) {
+                records.add(new String(record.getPayload(), StandardCharsets.UTF_8));
+            }
+        }
+        return records;
+    }
+
+    private static String[] expected(int from, int to) {
+        String[] records = new String[to - from];
+        for (int i = from; i < to; i++) {
+            records[i - from] = new String(record(i), StandardCharsets.UTF_8);
+        }
+        return records;
+    }
+
+    private static byte[] record(int i) {
+        return ("payment-record-" + i + "-" + "x".repeat(i * 3)).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.IdempotencyConfig;
+import vn.vnpay.demo1_16092024.bean.config.RedisPipelineConfig;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.config.RedisShardingConfig;
+import vn.vnpay.demo1_16092024.bean.config.RegisteredBank;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.MiniRedis;
+import vn.vnpay.demo1_16092024.bean.utils.RedisCircuitBreaker;
+import vn.vnpay.demo1_16092024.bean.utils.RedisPipeline;
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class IdempotencyGuardTests {
+
+    private static final PaymentResponse SUCCESS = new PaymentResponse("00", "Success", "id-1", "20240930103025", "checksum");
+    private static final PaymentResponse IN_PROGRESS = new PaymentResponse("04", "Duplicate", null, null, null);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger processed = new AtomicInteger();
+    private MiniRedis server;
+    private RedisClient client;
+    private RedisPipeline pipeline;
+    private RedisUtils redisUtils;
+    private RegisteredBank bank;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MiniRedis();
+        client = RedisClient.create();
+        LettuceConnectionFactory connectionFactory = mock(LettuceConnectionFactory.class);
+        when(connectionFactory.getRequiredNativeClient()).thenReturn(client);
+        RedisResilienceConfig resilienceConfig = new RedisResilienceConfig();
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "config", resilienceConfig);
+        ReflectionTestUtils.setField(breaker, "meterRegistry", meterRegistry);
+        breaker.init();
+        RedisShardingConfig sharding = new RedisShardingConfig();
+        sharding.setNodes(List.of("redis://127.0.0.1:" + server.getPort()));
+
+        pipeline = new RedisPipeline();
+        ReflectionTestUtils.setField(pipeline, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(pipeline, "config", new RedisPipelineConfig());
+        ReflectionTestUtils.setField(pipeline, "shardingConfig", sharding);
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "circuitBreaker", breaker);
+        pipeline.start();
+        redisUtils = new RedisUtils();
+        ReflectionTestUtils.setField(redisUtils, "redisPipeline", pipeline);
+        ReflectionTestUtils.setField(redisUtils, "resilienceConfig", resilienceConfig);
+
+        bank = mock(RegisteredBank.class);
+        when(bank.getBankCode()).thenReturn("VNPAY");
+        when(bank.getDuplicateWindow()).thenReturn(Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pipeline.stop();
+        client.shutdown(Duration.ZERO, Duration.ofSeconds(2));
+        server.close();
+    }
+
+    @Test
+    void answersARepeatOnTheSameNodeFromTheLocalCache() {
+        IdempotencyGuard guard = guard(redisUtils);
+
+        PaymentResponse first = execute(guard, "token-1", this::succeed);
+        PaymentResponse second = execute(guard, "token-1", this::succeed);
+
+        assertThat(second).isSameAs(first);
+        assertThat(processed).hasValue(1);
+        assertThat(meterRegistry.get("payment.idempotency.lookups").tag("result", "local_hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void answersARepeatOnAnotherNodeFromRedis() {
+        execute(guard(redisUtils), "token-1", this::succeed);
+
+        PaymentResponse repeat = execute(guard(redisUtils), "token-1", this::succeed);
+
+        assertThat(repeat).isEqualTo(SUCCESS);
+        assertThat(processed).hasValue(1);
+    }
+
+    @Test
+    void answersARepeatOfAPaymentStillInProgressAsDuplicate() {
+        CompletableFuture<PaymentResponse> slow = new CompletableFuture<>();
+        CompletableFuture<PaymentResponse> first = guard(redisUtils).execute(bank, request("token-1"), () -> slow, () -> IN_PROGRESS);
+
+        PaymentResponse repeat = execute(guard(redisUtils), "token-1", this::succeed);
+
+        assertThat(repeat).isSameAs(IN_PROGRESS);
+        assertThat(processed).hasValue(0);
+        slow.complete(SUCCESS);
+        assertThat(first.join()).isEqualTo(SUCCESS);
+    }
+
+    @Test
+    void givesTheReservationBackWhenThePaymentFails() {
+        IdempotencyGuard guard = guard(redisUtils);
+
+        assertThatThrownBy(() -> execute(guard, "token-1", () -> CompletableFuture.failedFuture(new IllegalStateException("down"))))
+                .isInstanceOf(CompletionException.class);
+        assertThatThrownBy(() -> execute(guard, "token-2", () -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(CompletionException.class);
+
+        assertThat(execute(guard, "token-1", this::succeed)).isEqualTo(SUCCESS);
+        assertThat(execute(guard(redisUtils), "token-2", this::succeed)).isEqualTo(SUCCESS);
+        assertThat(processed).hasValue(2);
+    }
+
+    @Test
+    void reservesAgainWhenTheHolderIsGoneByTheTimeItIsLookedUp() {
+        // SET NX lost to a holder that released the key before the GET
+        RedisUtils racing = spy(redisUtils);
+        doReturn(CompletableFuture.completedFuture(false)).doCallRealMethod().when(racing).reserveAsync(any(), any(), any());
+
+        PaymentResponse response = execute(guard(racing), "token-1", this::succeed);
+
+        assertThat(response).isEqualTo(SUCCESS);
+        assertThat(processed).hasValue(1);
+    }
+
+    private CompletableFuture<PaymentResponse> succeed() {
+        processed.incrementAndGet();
+        return CompletableFuture.completedFuture(SUCCESS);
+    }
+
+    private PaymentResponse execute(IdempotencyGuard guard, String tokenKey, Supplier<CompletableFuture<PaymentResponse>> action) {
+        try {
+            return guard.execute(bank, request(tokenKey), action, () -> IN_PROGRESS).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private IdempotencyGuard guard(RedisUtils redis) {
+        IdempotencyGuard guard = new IdempotencyGuard();
+        ReflectionTestUtils.setField(guard, "config", new IdempotencyConfig());
+        ReflectionTestUtils.setField(guard, "redisUtils", redis);
+        ReflectionTestUtils.setField(guard, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(guard, "meterRegistry", meterRegistry);
+        guard.init();
+        return guard;
+    }
+
+    private static PaymentRequest request(String tokenKey) {
+        PaymentRequest request = new PaymentRequest();
+        request.setBankCode("VNPAY");
+        request.setTokenKey(tokenKey);
+        request.setTraceTransfer("FT19070878181");
+        return request;
+    }
+}
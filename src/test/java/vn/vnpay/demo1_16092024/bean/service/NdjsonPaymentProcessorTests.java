@@ -0,0 +1,82 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.NdjsonConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NdjsonPaymentProcessorTests {
+
+    private NdjsonPaymentProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        IPaymentService paymentService = mock(IPaymentService.class);
+        // echo the fields the stream reused the request for, completing out of order
+        when(paymentService.processStreamedPaymentAsync(any())).thenAnswer(invocation -> {
+            PaymentRequest request = invocation.getArgument(0);
+            PaymentResponse response = new PaymentResponse("00", request.getTokenKey() + "/" + request.getMobile(),
+                    null, null, null);
+            return CompletableFuture.supplyAsync(() -> response,
+                    CompletableFuture.delayedExecutor(request.getTokenKey().hashCode() & 15, TimeUnit.MILLISECONDS));
+        });
+        NdjsonConfig config = new NdjsonConfig();
+        config.setWindow(2);
+
+        processor = new NdjsonPaymentProcessor();
+        ReflectionTestUtils.setField(processor, "paymentService", paymentService);
+        ReflectionTestUtils.setField(processor, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(processor, "config", config);
+        processor.init();
+    }
+
+    @Test
+    void answersEveryLineInInputOrder() throws Exception {
+        String input = """
+                {"tokenKey":"a","mobile":"0912345678"}
+                {"tokenKey":"b"}
+                {"tokenKey":"c","debitAmount":"not a number","mobile":"1"}
+
+                [1,2]
+                {"tokenKey":"d","mobile":"0987654321"}
+                """;
+
+        List<String> lines = run(input);
+
+        assertThat(lines).containsExactly(
+                "{\"code\":\"00\",\"message\":\"a/0912345678\",\"responseId\":null,\"responseTime\":null,\"checkSum\":null}",
+                "{\"code\":\"00\",\"message\":\"b/null\",\"responseId\":null,\"responseTime\":null,\"checkSum\":null}",
+                "{\"code\":\"01\",\"message\":\"Invalid Input Data\",\"responseId\":null,\"responseTime\":null,\"checkSum\":null}",
+                "{\"code\":\"01\",\"message\":\"Invalid Input Data\",\"responseId\":null,\"responseTime\":null,\"checkSum\":null}",
+                "{\"code\":\"00\",\"message\":\"d/0987654321\",\"responseId\":null,\"responseTime\":null,\"checkSum\":null}");
+    }
+
+    @Test
+    void stopsAfterMalformedJson() throws Exception {
+        List<String> lines = run("{\"tokenKey\":\"a\"}\n{\"tokenKey\": oops}\n{\"tokenKey\":\"b\"}\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).contains("\"code\":\"01\"");
+    }
+
+    private List<String> run(String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        processor.process(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
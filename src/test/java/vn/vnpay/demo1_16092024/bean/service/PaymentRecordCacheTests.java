@@ -0,0 +1,124 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.codec.PaymentCodecs;
+import vn.vnpay.demo1_16092024.bean.config.QueryConfig;
+import vn.vnpay.demo1_16092024.bean.config.StorageConfig;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.RedisUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentRecordCacheTests {
+
+    private RedisUtils redisUtils;
+    private PaymentCodecs codecs;
+    private PaymentRecordCache cache;
+
+    @BeforeEach
+    void setUp() {
+        codecs = new PaymentCodecs();
+        ReflectionTestUtils.setField(codecs, "config", new StorageConfig());
+        ReflectionTestUtils.setField(codecs, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(codecs, "meterRegistry", new SimpleMeterRegistry());
+        codecs.init();
+
+        redisUtils = mock(RedisUtils.class);
+        cache = new PaymentRecordCache();
+        ReflectionTestUtils.setField(cache, "config", new QueryConfig());
+        ReflectionTestUtils.setField(cache, "redisUtils", redisUtils);
+        ReflectionTestUtils.setField(cache, "paymentCodecs", codecs);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    @Test
+    void servesRepeatedReadsLocallyUntilInvalidated() throws Exception {
+        when(redisUtils.getDataAsync("BIDV", "tk-1")).thenReturn(CompletableFuture.completedFuture(codecs.encode(request("BIDV", "tk-1"))));
+
+        assertThat(cache.find("BIDV", "tk-1").join().getTokenKey()).isEqualTo("tk-1");
+        assertThat(cache.find("BIDV", "tk-1").join().getTokenKey()).isEqualTo("tk-1");
+        verify(redisUtils, times(1)).getDataAsync("BIDV", "tk-1");
+
+        cache.invalidate("BIDV", "tk-1");
+        cache.find("BIDV", "tk-1").join();
+        verify(redisUtils, times(2)).getDataAsync("BIDV", "tk-1");
+    }
+
+    @Test
+    void doesNotCacheMissingRecords() {
+        when(redisUtils.getDataAsync("BIDV", "tk-1")).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(cache.find("BIDV", "tk-1").join()).isNull();
+        assertThat(cache.find("BIDV", "tk-1").join()).isNull();
+        verify(redisUtils, times(2)).getDataAsync("BIDV", "tk-1");
+    }
+
+    @Test
+    void groupsUncachedKeysIntoOneHmgetPerToken() throws Exception {
+        when(redisUtils.getDataAsync("VNPAY", "tk-2")).thenReturn(CompletableFuture.completedFuture(codecs.encode(request("VNPAY", "tk-2"))));
+        cache.find("VNPAY", "tk-2").join();
+        byte[] stored = codecs.encode(request("BIDV", "tk-1"));
+        when(redisUtils.getDataAsync(anyList(), eq("tk-1"))).thenAnswer(invocation -> {
+            List<String> bankCodes = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(bankCodes.stream()
+                    .map(bankCode -> "BIDV".equals(bankCode) ? stored : null)
+                    .toList());
+        });
+
+        PaymentRecordCache.Lookup lookup = cache.findAll(List.of(
+                new PaymentRecordCache.Key("BIDV", "tk-1"),
+                new PaymentRecordCache.Key("VNPAY", "tk-1"),
+                new PaymentRecordCache.Key("VNPAY", "tk-2"))).join();
+
+        assertThat(lookup.found()).containsOnlyKeys(new PaymentRecordCache.Key("BIDV", "tk-1"), new PaymentRecordCache.Key("VNPAY", "tk-2"));
+        assertThat(lookup.unreadable()).isEmpty();
+        verify(redisUtils).getDataAsync(anyList(), eq("tk-1"));
+        verify(redisUtils, never()).getDataAsync(anyList(), eq("tk-2"));
+        verify(redisUtils, never()).getDataAsync(any(String.class), eq("tk-1"));
+    }
+
+    @Test
+    void failsOnlyTheKeyWhoseRecordCannotBeDecoded() throws Exception {
+        byte[] stored = codecs.encode(request("BIDV", "tk-1"));
+        byte[] corrupt = "{not a payment".getBytes(StandardCharsets.UTF_8);
+        when(redisUtils.getDataAsync(anyList(), eq("tk-1"))).thenAnswer(invocation -> {
+            List<String> bankCodes = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(bankCodes.stream()
+                    .map(bankCode -> "BIDV".equals(bankCode) ? stored : corrupt)
+                    .toList());
+        });
+
+        PaymentRecordCache.Lookup lookup = cache.findAll(List.of(
+                new PaymentRecordCache.Key("BIDV", "tk-1"),
+                new PaymentRecordCache.Key("VNPAY", "tk-1"))).join();
+
+        assertThat(lookup.found()).containsOnlyKeys(new PaymentRecordCache.Key("BIDV", "tk-1"));
+        assertThat(lookup.unreadable()).containsOnly(new PaymentRecordCache.Key("VNPAY", "tk-1"));
+    }
+
+    private static PaymentRequest request(String bankCode, String tokenKey) {
+        PaymentRequest request = new PaymentRequest();
+        request.setBankCode(bankCode);
+        request.setTokenKey(tokenKey);
+        request.setMobile("0912345678");
+        request.setDebitAmount(10000);
+        return request;
+    }
+}
@@ -0,0 +1,170 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentQueryResponse;
+import vn.vnpay.demo1_16092024.bean.dto.response.PaymentResponse;
+import vn.vnpay.demo1_16092024.bean.utils.MiniRedis;
+import vn.vnpay.demo1_16092024.bean.utils.PaymentRequestLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "payment.id.nodeId=0",
+        "banks.bankList[0].bankCode=VNPAY",
+        "banks.bankList[0].privateKey=" + PaymentServiceTests.PRIVATE_KEY,
+        "banks.bankList[0].ratePerSecond=1",
+        "banks.bankList[0].burst=" + PaymentServiceTests.BURST,
+        "banks.bankList[0].maxConcurrent=" + PaymentServiceTests.BURST,
+        "banks.bankList[0].bulkhead=narrow",
+        "banks.bankList[1].bankCode=BIDV",
+        "banks.bankList[1].privateKey=jjjjjjjj",
+        "payment.bulkhead.tiers.narrow.threads=1",
+        "payment.bulkhead.tiers.narrow.queueCapacity=1",
+        "payment.bulkhead.tiers.narrow.queueTimeout=1ms",
+        "payment.bulkhead.tiers.narrow.maxConcurrent=2",
+        "payment.ndjson.window=16",
+        "payment.journal.enabled=false",
+        "payment.redis.resilience.spoolEnabled=false",
+        "payment.warmup.enabled=false"
+})
+class PaymentServiceTests {
+
+    static final String PRIVATE_KEY = "ghffffffffff";
+    static final int BURST = 4;
+
+    private static final MiniRedis redis = startRedis();
+
+    @Autowired
+    private IPaymentService paymentService;
+
+    @Autowired
+    private NdjsonPaymentProcessor ndjsonPaymentProcessor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @SpyBean
+    private IdempotencyGuard idempotencyGuard;
+
+    @SpyBean
+    private PaymentRequestLogger paymentRequestLogger;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", () -> "127.0.0.1");
+        registry.add("spring.data.redis.port", redis::getPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @Test
+    void shedsOnlineRequestsOverTheBankLimits() {
+        List<CompletableFuture<PaymentResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < BURST * 3; i++) {
+            responses.add(paymentService.processPaymentAsync(signedRequest("online-" + i)));
+        }
+
+        assertThat(responses).extracting(response -> response.join().getCode()).containsAnyOf("06", "07");
+    }
+
+    @Test
+    void replaysEveryRecordPastTheBankLimits() throws Exception {
+        StringBuilder input = new StringBuilder();
+        int records = BURST * 25;
+        for (int i = 0; i < records; i++) {
+            input.append(objectMapper.writeValueAsString(signedRequest("replay-" + i))).append('\n');
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ndjsonPaymentProcessor.process(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(records);
+        assertThat(lines).allSatisfy(line -> assertThat(line).contains("\"code\":\"00\""));
+    }
+
+    @Test
+    void looksUpStoredPaymentsWithoutPersonalData() throws Exception {
+        PaymentRequest request = signedRequest("lookup-1");
+        assertThat(paymentService.processStreamedPaymentAsync(request).join().getCode()).isEqualTo("00");
+
+        PaymentQueryResponse found = paymentService.findPayment("VNPAY", "lookup-1");
+
+        assertThat(found.getCode()).isEqualTo("00");
+        assertThat(found.getPayment().getTraceTransfer()).isEqualTo("FTlookup-1");
+        assertThat(found.getPayment().getAccountNo()).isEqualTo("************1002");
+        String json = objectMapper.writeValueAsString(found);
+        assertThat(json).doesNotContain(request.getMobile(), request.getAccountNo(), request.getCheckSum(),
+                request.getUserName(), "additionalData");
+    }
+
+    @Test
+    void logsRequestsThatFailWithoutAResponse() {
+        PaymentRequest request = signedRequest("failing-1");
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("store failed")))
+                .when(idempotencyGuard).execute(any(), same(request), any(), any());
+
+        assertThatThrownBy(() -> paymentService.processStreamedPaymentAsync(request).join())
+                .hasRootCauseMessage("store failed");
+        verify(paymentRequestLogger).logFailure(same(request), any(), anyLong());
+    }
+
+    private PaymentRequest signedRequest(String tokenKey) {
+        PaymentRequest request = new PaymentRequest();
+        request.setTokenKey(tokenKey);
+        request.setApiID("restPayment");
+        request.setMobile("0912345678");
+        request.setBankCode("VNPAY");
+        request.setAccountNo("0001100014211002");
+        request.setPayDate("20240930103025");
+        request.setAdditionalData("{\"channel\":\"MOBILE\"}");
+        request.setDebitAmount(11200);
+        request.setRespCode("00");
+        request.setRespDesc("SUCCESS");
+        request.setTraceTransfer("FT" + tokenKey);
+        request.setMessageType("1");
+        request.setOrderCode("FT" + tokenKey);
+        request.setUserName("cntest001");
+        request.setRealAmount("11200");
+        request.setPromotionCode("PROMO01");
+        try {
+            request.setCheckSum(paymentService.calculateRequestCheckSum(request, PRIVATE_KEY));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return request;
+    }
+
+    private static MiniRedis startRedis() {
+        try {
+            return new MiniRedis();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
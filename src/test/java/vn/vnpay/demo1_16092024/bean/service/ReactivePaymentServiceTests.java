@@ -0,0 +1,90 @@
+package vn.vnpay.demo1_16092024.bean.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+import vn.vnpay.demo1_16092024.bean.utils.MiniRedis;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "payment.id.nodeId=0",
+        "banks.bankList[0].bankCode=VNPAY",
+        "banks.bankList[0].privateKey=" + ReactivePaymentServiceTests.PRIVATE_KEY,
+        "payment.journal.enabled=false",
+        "payment.redis.resilience.spoolEnabled=false",
+        "payment.warmup.enabled=false"
+})
+@ActiveProfiles("reactive")
+class ReactivePaymentServiceTests {
+
+    static final String PRIVATE_KEY = "ghffffffffff";
+
+    private static final MiniRedis redis = startRedis();
+
+    @Autowired
+    private ReactivePaymentService paymentService;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", () -> "127.0.0.1");
+        registry.add("spring.data.redis.port", redis::getPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.close();
+    }
+
+    @Test
+    void answersAnOverwrittenRecordAsStored() {
+        PaymentRequest first = signedRequest("overwrite-1", "FT0001");
+        PaymentRequest second = signedRequest("overwrite-1", "FT0002");
+
+        assertThat(paymentService.processPaymentReactive(first).block().getCode()).isEqualTo("00");
+        assertThat(paymentService.processPaymentReactive(second).block().getCode()).isEqualTo("00");
+        assertThat(paymentService.findPayment("VNPAY", "overwrite-1").getPayment().getTraceTransfer())
+                .isEqualTo("FT0002");
+    }
+
+    private PaymentRequest signedRequest(String tokenKey, String traceTransfer) {
+        PaymentRequest request = new PaymentRequest();
+        request.setTokenKey(tokenKey);
+        request.setApiID("restPayment");
+        request.setMobile("0912345678");
+        request.setBankCode("VNPAY");
+        request.setAccountNo("0001100014211002");
+        request.setPayDate("20240930103025");
+        request.setAdditionalData("{\"channel\":\"MOBILE\"}");
+        request.setDebitAmount(11200);
+        request.setRespCode("00");
+        request.setRespDesc("SUCCESS");
+        request.setTraceTransfer(traceTransfer);
+        request.setMessageType("1");
+        request.setOrderCode(traceTransfer);
+        request.setUserName("cntest001");
+        request.setRealAmount("11200");
+        request.setPromotionCode("PROMO01");
+        try {
+            request.setCheckSum(paymentService.calculateRequestCheckSum(request, PRIVATE_KEY));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return request;
+    }
+
+    private static MiniRedis startRedis() {
+        try {
+            return new MiniRedis();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
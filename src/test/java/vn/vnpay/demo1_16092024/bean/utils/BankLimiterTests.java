@@ -0,0 +1,67 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import org.junit.jupiter.api.Test;
+import vn.vnpay.demo1_16092024.bean.constant.AdmissionResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BankLimiterTests {
+
+    @Test
+    void admitsTheBurstThenLimitsTheRate() throws InterruptedException {
+        BankLimiter limiter = BankLimiter.of(100.0, 5, null);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+        }
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.RATE_LIMITED);
+
+        Thread.sleep(25);
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+    }
+
+    @Test
+    void capsRequestsInFlightUntilReleased() {
+        BankLimiter limiter = BankLimiter.of(null, null, 2);
+
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.CONCURRENCY_LIMITED);
+
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void rateRejectionGivesTheConcurrencySlotBack() {
+        BankLimiter limiter = BankLimiter.of(0.001, 1, 5);
+
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+        assertThat(limiter.tryAcquire()).isEqualTo(AdmissionResult.RATE_LIMITED);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void neverAdmitsMoreThanTheBurstUnderContention() {
+        BankLimiter limiter = BankLimiter.of(0.001, 50, null);
+        AtomicInteger admitted = new AtomicInteger();
+
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            if (limiter.tryAcquire() == AdmissionResult.ADMITTED) {
+                admitted.incrementAndGet();
+            }
+        });
+
+        assertThat(admitted).hasValue(50);
+    }
+
+    @Test
+    void banksWithoutLimitsShareTheUnlimitedInstance() {
+        assertThat(BankLimiter.of(null, 10, null)).isSameAs(BankLimiter.UNLIMITED);
+        assertThat(BankLimiter.UNLIMITED.tryAcquire()).isEqualTo(AdmissionResult.ADMITTED);
+    }
+}
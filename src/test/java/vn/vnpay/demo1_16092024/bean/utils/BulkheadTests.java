@@ -0,0 +1,101 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import vn.vnpay.demo1_16092024.bean.config.BulkheadConfig;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void answersBusyOnceTheInFlightCapIsReached() {
+        Bulkhead bulkhead = new Bulkhead("test", tier(2, 10, Duration.ofSeconds(1), 1), false, meterRegistry);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = bulkhead.execute(() -> pending, () -> "busy");
+        assertThat(bulkhead.execute(() -> CompletableFuture.completedFuture("ok"), () -> "busy").join()).isEqualTo("busy");
+
+        pending.complete("ok");
+        assertThat(first.join()).isEqualTo("ok");
+        assertThat(bulkhead.getInFlight()).isZero();
+        assertThat(bulkhead.execute(() -> CompletableFuture.completedFuture("ok"), () -> "busy").join()).isEqualTo("ok");
+        assertThat(rejected("full")).isEqualTo(1);
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFullAndDropsRequestsThatWaitedTooLong() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", tier(1, 1, Duration.ofMillis(20), 10), false, meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> blocker = bulkhead.execute(() -> {
+            running.countDown();
+            await(release);
+            return CompletableFuture.completedFuture("ok");
+        }, () -> "busy");
+        running.await(1, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = bulkhead.execute(() -> CompletableFuture.completedFuture("ok"), () -> "busy");
+        CompletableFuture<String> overflow = bulkhead.execute(() -> CompletableFuture.completedFuture("ok"), () -> "busy");
+
+        assertThat(overflow.join()).isEqualTo("busy");
+        Thread.sleep(50);
+        release.countDown();
+        assertThat(blocker.join()).isEqualTo("ok");
+        assertThat(queued.join()).isEqualTo("busy");
+        assertThat(rejected("queue_full")).isEqualTo(1);
+        assertThat(rejected("queue_timeout")).isEqualTo(1);
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void callerRunsModeLimitsWorkersWithoutAPool() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", tier(1, 0, Duration.ofMillis(20), 10), true, meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> bulkhead.execute(() -> {
+            running.countDown();
+            await(release);
+            return CompletableFuture.completedFuture("ok");
+        }, () -> "busy"));
+        holder.start();
+        running.await(1, TimeUnit.SECONDS);
+
+        String caller = Thread.currentThread().getName();
+        assertThat(bulkhead.execute(() -> CompletableFuture.completedFuture("ok"), () -> "busy").join()).isEqualTo("busy");
+        release.countDown();
+        holder.join();
+        assertThat(bulkhead.execute(() -> CompletableFuture.completedFuture(Thread.currentThread().getName()),
+                () -> "busy").join()).isEqualTo(caller);
+        assertThat(rejected("queue_full")).isEqualTo(1);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("payment.bulkhead.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static BulkheadConfig.Tier tier(int threads, int queueCapacity, Duration queueTimeout, int maxConcurrent) {
+        BulkheadConfig.Tier tier = new BulkheadConfig.Tier();
+        tier.setThreads(threads);
+        tier.setQueueCapacity(queueCapacity);
+        tier.setQueueTimeout(queueTimeout);
+        tier.setMaxConcurrent(maxConcurrent);
+        return tier;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HmacSha256SignerTests {
+
+    private static final String SECRET = "ghffffffffff";
+
+    @Test
+    void sessionMatchesConcatenatedStringSignature() throws Exception {
+        String expected = referenceHmac("0912345678" + "VNPAY" + "123456" + "20240930103025"
+                + (Integer) (-1500) + "00" + "Trace-ü" + null, SECRET);
+
+        String actual = new HmacSha256Signer(SECRET).begin()
+                .update("0912345678")
+                .update("VNPAY")
+                .update("123456")
+                .update("20240930103025")
+                .update(-1500)
+                .update("00")
+                .update("Trace-ü")
+                .update((String) null)
+                .doFinalHex();
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void prefixedSessionMatchesTheFullSignature() throws Exception {
+        HmacSha256Signer signer = new HmacSha256Signer(SECRET);
+        HmacSha256Signer.Prefix prefix = signer.prefix("00", "Success");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(prefix.begin().update("37009642860546867" + i).update("20241018063104").doFinalHex())
+                    .isEqualTo(signer.sign("00Success37009642860546867" + i + "20241018063104"));
+        }
+    }
+
+    @Test
+    void pooledSessionsDoNotLeakState() throws Exception {
+        HmacSha256Signer signer = new HmacSha256Signer(SECRET);
+        String first = signer.sign("payload");
+        signer.begin().update("abandoned-but-finished").doFinal();
+
+        assertThat(signer.sign("payload")).isEqualTo(first).isEqualTo(referenceHmac("payload", SECRET));
+    }
+
+    @Test
+    void constantTimeEqualsComparesWholeValue() {
+        assertThat(PaymentUtils.constantTimeEquals("abcd", "abcd")).isTrue();
+        assertThat(PaymentUtils.constantTimeEquals("abcd", "abce")).isFalse();
+        assertThat(PaymentUtils.constantTimeEquals("abcd", "abc")).isFalse();
+        assertThat(PaymentUtils.constantTimeEquals(null, "abc")).isFalse();
+    }
+
+    private static String referenceHmac(String data, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+}
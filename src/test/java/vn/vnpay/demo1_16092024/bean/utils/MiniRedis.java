@@ -0,0 +1,250 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process RESP2 server for tests, speaking just enough of Redis for the payment pipeline:
+ * hashes, plain strings and, when given a {@code CLUSTER NODES} reply, cluster discovery.
+ * Expiry is accepted and ignored.
+ */
+public final class MiniRedis implements Closeable {
+
+    private final ServerSocket server;
+    private final Map<String, Map<String, byte[]>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> strings = new ConcurrentHashMap<>();
+    private final List<Socket> clients = new ArrayList<>();
+    private volatile String clusterNodes;
+
+    public MiniRedis() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "mini-redis-" + server.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    String getUri() {
+        return "redis://127.0.0.1:" + getPort();
+    }
+
+    void setClusterNodes(String clusterNodes) {
+        this.clusterNodes = clusterNodes;
+    }
+
+    Map<String, byte[]> hash(String key) {
+        return hashes.getOrDefault(key, Map.of());
+    }
+
+    int size() {
+        return hashes.size() + strings.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                synchronized (clients) {
+                    clients.add(client);
+                }
+                Thread handler = new Thread(() -> serve(client), "mini-redis-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (client) {
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = new BufferedOutputStream(client.getOutputStream());
+            List<byte[]> command;
+            while ((command = read(in)) != null) {
+                reply(out, execute(command));
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private Object execute(List<byte[]> command) {
+        String name = string(command.get(0)).toUpperCase();
+        switch (name) {
+            case "PING":
+                return Status.PONG;
+            case "CLIENT":
+            case "SELECT":
+            case "READONLY":
+                return Status.OK;
+            case "INFO":
+                return "# Server\r\nredis_version:7.0.0\r\n# Clients\r\nconnected_clients:1\r\n".getBytes(StandardCharsets.UTF_8);
+            case "CLUSTER":
+                return cluster(string(command.get(1)).toUpperCase());
+            case "HSET": {
+                Map<String, byte[]> hash = hashes.computeIfAbsent(string(command.get(1)), key -> new ConcurrentHashMap<>());
+                long created = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    created += hash.put(string(command.get(i)), command.get(i + 1)) == null ? 1 : 0;
+                }
+                return created;
+            }
+            case "HGET":
+                return hash(string(command.get(1))).get(string(command.get(2)));
+            case "HMGET": {
+                Map<String, byte[]> hash = hash(string(command.get(1)));
+                List<Object> values = new ArrayList<>();
+                for (int i = 2; i < command.size(); i++) {
+                    values.add(hash.get(string(command.get(i))));
+                }
+                return values;
+            }
+            case "PEXPIRE":
+            case "EXPIRE": {
+                String key = string(command.get(1));
+                return hashes.containsKey(key) || strings.containsKey(key) ? 1L : 0L;
+            }
+            case "SET": {
+                String key = string(command.get(1));
+                boolean nx = false;
+                boolean xx = false;
+                for (int i = 3; i < command.size(); i++) {
+                    nx |= "NX".equalsIgnoreCase(string(command.get(i)));
+                    xx |= "XX".equalsIgnoreCase(string(command.get(i)));
+                }
+                if (nx) {
+                    return strings.putIfAbsent(key, command.get(2)) == null ? Status.OK : null;
+                }
+                if (xx) {
+                    return strings.replace(key, command.get(2)) != null ? Status.OK : null;
+                }
+                strings.put(key, command.get(2));
+                return Status.OK;
+            }
+            case "GET":
+                return strings.get(string(command.get(1)));
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    String key = string(command.get(i));
+                    removed += (strings.remove(key) != null ? 1 : 0) + (hashes.remove(key) != null ? 1 : 0);
+                }
+                return removed;
+            }
+            default:
+                return new IllegalStateException("unknown command '" + name + "'");
+        }
+    }
+
+    private Object cluster(String subcommand) {
+        String nodes = clusterNodes;
+        if (nodes == null) {
+            return new IllegalStateException("This instance has cluster support disabled");
+        }
+        if ("NODES".equals(subcommand)) {
+            return nodes.getBytes(StandardCharsets.UTF_8);
+        }
+        if ("MYID".equals(subcommand)) {
+            for (String node : nodes.split("\n")) {
+                if (node.contains("myself")) {
+                    return node.substring(0, node.indexOf(' ')).getBytes(StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return new IllegalStateException("unknown subcommand '" + subcommand + "'");
+    }
+
+    private static List<byte[]> read(InputStream in) throws IOException {
+        int marker = in.read();
+        if (marker == -1) {
+            return null;
+        }
+        if (marker != '*') {
+            throw new IOException("Expected an array, got " + (char) marker);
+        }
+        int count = Integer.parseInt(line(in));
+        List<byte[]> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a bulk string");
+            }
+            byte[] value = in.readNBytes(Integer.parseInt(line(in)));
+            in.skipNBytes(2);
+            command.add(value);
+        }
+        return command;
+    }
+
+    private static String line(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new IOException("Connection closed mid-command");
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void reply(OutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (value instanceof Status status) {
+            out.write(('+' + status.name() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (value instanceof Long number) {
+            out.write((":" + number + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (value instanceof Exception error) {
+            out.write(("-ERR " + error.getMessage() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof List<?> values) {
+            out.write(("*" + values.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (Object element : values) {
+                reply(out, element);
+            }
+        } else {
+            byte[] bytes = (byte[]) value;
+            out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private enum Status {
+        OK,
+        PONG
+    }
+}
@@ -0,0 +1,65 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.BankConfig;
+import vn.vnpay.demo1_16092024.bean.config.BankRegistry;
+import vn.vnpay.demo1_16092024.bean.config.IdempotencyConfig;
+import vn.vnpay.demo1_16092024.bean.config.StorageConfig;
+import vn.vnpay.demo1_16092024.bean.constant.PaymentStage;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentMetricsTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        BankConfig.Bank bank = new BankConfig.Bank();
+        bank.setBankCode("VNPAY");
+        bank.setPrivateKey("ghffffffffff");
+        BankConfig bankConfig = new BankConfig();
+        bankConfig.setBankList(List.of(bank));
+        BankRegistry bankRegistry = new BankRegistry();
+        ReflectionTestUtils.setField(bankRegistry, "idempotencyConfig", new IdempotencyConfig());
+        ReflectionTestUtils.setField(bankRegistry, "storageConfig", new StorageConfig());
+        bankRegistry.reload(bankConfig);
+
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new PaymentMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(metrics, "bankRegistry", bankRegistry);
+        metrics.init();
+    }
+
+    @Test
+    void countsOutcomesByCodeAndCollapsesUnknownBanks() {
+        long start = System.nanoTime();
+        metrics.recordOutcome("VNPAY", "00", start);
+        metrics.recordOutcome("VNPAY", "00", start);
+        metrics.recordOutcome("NOPE-1", "02", start);
+        metrics.recordOutcome("NOPE-2", "02", start);
+
+        assertThat(meterRegistry.get("payment.requests").tags("bank", "VNPAY", "code", "00").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("payment.requests").tags("bank", PaymentMetrics.UNKNOWN_BANK, "code", "02")
+                .counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.find("payment.requests").tag("bank", "NOPE-1").counters()).isEmpty();
+        assertThat(meterRegistry.get("payment.request.duration").tag("code", "00").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void recordsStageAndReturnsNextStart() {
+        long start = System.nanoTime();
+        long next = metrics.recordStage(PaymentStage.CHECKSUM, start);
+
+        assertThat(next).isGreaterThanOrEqualTo(start);
+        assertThat(meterRegistry.get("payment.stage.duration").tag("stage", "checksum").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,86 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vn.vnpay.demo1_16092024.bean.constant.FieldName;
+import vn.vnpay.demo1_16092024.bean.dto.request.PaymentRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentRequestValidatorTests {
+
+    private final PaymentRequestValidator validator = new PaymentRequestValidator();
+
+    @Test
+    void validRequestReturnsSharedResult() {
+        assertThat(validator.validate(validRequest())).isSameAs(ValidationResult.VALID);
+    }
+
+    @Test
+    void reportsEveryFailedField() {
+        PaymentRequest request = validRequest();
+        request.setTokenKey("   ");
+        request.setMobile("09123x5678");
+        request.setDebitAmount(null);
+        request.setRealAmount("12.5");
+
+        ValidationResult result = validator.validate(request);
+
+        assertThat(result.getFailedFields()).containsExactly(
+                FieldName.TOKEN_KEY, FieldName.MOBILE, FieldName.DEBIT_AMOUNT, FieldName.REAL_AMOUNT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "+7", "-2147483648", "2147483647", "0002147483647"})
+    void acceptsRealAmountsThatParseAsInt(String realAmount) {
+        PaymentRequest request = validRequest();
+        request.setRealAmount(realAmount);
+
+        assertThat(validator.validate(request).isValid()).isTrue();
+        assertThat(Integer.parseInt(realAmount)).isNotNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-", "+", "2147483648", "-2147483649", " 1", "1e3", "１２"})
+    void rejectsRealAmountsThatDoNotParseAsInt(String realAmount) {
+        PaymentRequest request = validRequest();
+        request.setRealAmount(realAmount);
+
+        assertThat(validator.validate(request).getFailedFields()).containsExactly(FieldName.REAL_AMOUNT);
+    }
+
+    @Test
+    void appliesPerBankRules() {
+        PaymentRequest request = validRequest();
+        request.setPromotionCode("");
+        request.setDebitAmount(5_000_000);
+        ValidationRules rules = ValidationRules.of(List.of(FieldName.PROMOTION_CODE), 1_000_000);
+
+        assertThat(validator.validate(request, rules).getFailedFields()).containsExactly(FieldName.DEBIT_AMOUNT);
+    }
+
+    private static PaymentRequest validRequest() {
+        PaymentRequest request = new PaymentRequest();
+        request.setTokenKey("token-1");
+        request.setApiID("restPayment");
+        request.setMobile("0912345678");
+        request.setBankCode("VNPAY");
+        request.setAccountNo("0001100014211002");
+        request.setPayDate("20240930103025");
+        request.setAdditionalData("{}");
+        request.setDebitAmount(11200);
+        request.setRespCode("00");
+        request.setRespDesc("SUCCESS");
+        request.setTraceTransfer("FT19070878181");
+        request.setMessageType("1");
+        request.setCheckSum("0".repeat(64));
+        request.setOrderCode("FT19070878181");
+        request.setUserName("cntest001");
+        request.setRealAmount("11200");
+        request.setPromotionCode("PROMO01");
+        return request;
+    }
+}
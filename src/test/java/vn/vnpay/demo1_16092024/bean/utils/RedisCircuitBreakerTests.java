@@ -0,0 +1,94 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.constant.CircuitState;
+import vn.vnpay.demo1_16092024.bean.exception.RedisUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedisCircuitBreakerTests {
+
+    private RedisResilienceConfig config;
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        config = new RedisResilienceConfig();
+        config.setFailureThreshold(3);
+        config.setOpenDuration(Duration.ofHours(1));
+        breaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "config", config);
+        ReflectionTestUtils.setField(breaker, "meterRegistry", new SimpleMeterRegistry());
+        breaker.init();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndFailsFast() {
+        fail();
+        fail();
+        breaker.call(() -> CompletableFuture.completedFuture("ok")).join();
+        fail();
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+
+        fail();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThatThrownBy(() -> breaker.call(() -> CompletableFuture.completedFuture("ok")).join())
+                .hasCauseInstanceOf(RedisUnavailableException.class);
+    }
+
+    @Test
+    void probeClosesOrReopensTheCircuit() {
+        config.setOpenDuration(Duration.ZERO);
+        fail();
+        fail();
+        fail();
+
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+
+        assertThat(breaker.call(() -> CompletableFuture.completedFuture("ok")).join()).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void ignoresRedirectsAndReadErrorsButNotReadTimeouts() {
+        for (int i = 0; i < 5; i++) {
+            fail(new RedisCommandExecutionException("MOVED 3999 127.0.0.1:6381"), true);
+            fail(new RedisCommandExecutionException("ASK 3999 127.0.0.1:6381"), true);
+            fail(new RedisCommandExecutionException("WRONGTYPE Operation against a key"), false);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+
+        fail(new TimeoutException(), false);
+        fail(new TimeoutException(), false);
+        breaker.call(() -> CompletableFuture.completedFuture("read"), false).join();
+        fail(new RedisCommandExecutionException("OOM command not allowed"), true);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+    }
+
+    private void fail() {
+        fail(new TimeoutException(), true);
+    }
+
+    private void fail(Throwable error, boolean write) {
+        try {
+            breaker.call(() -> CompletableFuture.failedFuture(error), write).join();
+        } catch (CompletionException expected) {
+            // counted by the breaker, or not
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.RedisPipelineConfig;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.config.RedisShardingConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RedisPipelineTests {
+
+    private static final byte[] RECORD = "record".getBytes(StandardCharsets.UTF_8);
+
+    private final List<MiniRedis> servers = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AbstractRedisClient client;
+    private RedisPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        if (client != null) {
+            client.shutdown(Duration.ZERO, Duration.ofSeconds(2));
+        }
+        for (MiniRedis server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    void shardsKeysBySlotAcrossIndependentNodes() throws Exception {
+        startServers(3);
+        RedisShardingConfig sharding = new RedisShardingConfig();
+        sharding.setNodes(servers.stream().map(MiniRedis::getUri).toList());
+        pipeline = pipeline(RedisClient.create(), sharding, new RedisPipelineConfig());
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            keys.add("token-" + i);
+        }
+        keys.add("{order-7}:VNPAY");
+        keys.add("{order-7}:BIDV");
+        write(keys);
+
+        for (String key : keys) {
+            int owner = SlotHash.getSlot(key) * servers.size() / SlotHash.SLOT_COUNT;
+            for (int i = 0; i < servers.size(); i++) {
+                assertThat(servers.get(i).hash(key).containsKey("VNPAY")).as("%s on node %d", key, i).isEqualTo(i == owner);
+            }
+        }
+        assertThat(servers).allSatisfy(server -> assertThat(server.size()).isPositive());
+        assertThat(SlotHash.getSlot("{order-7}:VNPAY")).isEqualTo(SlotHash.getSlot("{order-7}:BIDV"));
+        assertThat(pipeline.isSharded()).isTrue();
+        for (MiniRedis server : servers) {
+            assertThat(meterRegistry.get("payment.redis.pipeline.flush.latency")
+                    .tag("node", "127.0.0.1:" + server.getPort()).timer().count()).isPositive();
+        }
+    }
+
+    @Test
+    void routesByTheRedisClusterSlotTable() throws Exception {
+        startServers(2);
+        int first = servers.get(0).getPort();
+        int second = servers.get(1).getPort();
+        for (MiniRedis server : servers) {
+            server.setClusterNodes(clusterNode("a", first, server.getPort() == first, "0-8191")
+                    + clusterNode("b", second, server.getPort() == second, "8192-16383"));
+        }
+        pipeline = pipeline(RedisClusterClient.create(RedisURI.create(servers.get(0).getUri())), new RedisShardingConfig(),
+                new RedisPipelineConfig());
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("token-" + i);
+        }
+        write(keys);
+
+        for (String key : keys) {
+            MiniRedis owner = servers.get(SlotHash.getSlot(key) < 8192 ? 0 : 1);
+            MiniRedis other = servers.get(SlotHash.getSlot(key) < 8192 ? 1 : 0);
+            assertThat(owner.hash(key)).containsKey("VNPAY");
+            assertThat(other.hash(key)).isEmpty();
+        }
+        assertThat(pipeline.isSharded()).isFalse();
+        assertThat(pipeline.getNodes()).containsExactlyInAnyOrder("127.0.0.1:" + first, "127.0.0.1:" + second);
+    }
+
+    @Test
+    void completesEachCallerWithItsOwnReply() throws Exception {
+        startServers(1);
+        pipeline = singleNode(new RedisPipelineConfig());
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add("token-" + i);
+        }
+        write(keys);
+
+        for (String key : keys) {
+            byte[] value = pipeline.read(key, commands -> commands.hget(key, "VNPAY")).get();
+            assertThat(value).isEqualTo(RECORD);
+        }
+        assertThat(pipeline.read("token-missing", commands -> commands.hget("token-missing", "VNPAY")).get()).isNull();
+        assertThat(pipeline.getQueueDepth()).isZero();
+        assertThat(pipeline.isConnected()).isTrue();
+        assertThat(pipeline.isSharded()).isFalse();
+    }
+
+    @Test
+    void flushesConcurrentCommandsInBatchesOfAtMostMaxBatchSize() throws Exception {
+        startServers(1);
+        RedisPipelineConfig config = new RedisPipelineConfig();
+        config.setMaxBatchSize(8);
+        config.setLinger(Duration.ofMillis(50));
+        pipeline = singleNode(config);
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            keys.add("token-" + i);
+        }
+        write(keys);
+
+        DistributionSummary batchSize = awaitFlushed("127.0.0.1:" + servers.get(0).getPort(), 40);
+        assertThat(batchSize.totalAmount()).isEqualTo(40);
+        assertThat(batchSize.max()).isLessThanOrEqualTo(8);
+        assertThat(batchSize.count()).isLessThan(40);
+        assertThat(servers.get(0).size()).isEqualTo(40);
+    }
+
+    @Test
+    void pingsEveryNode() throws Exception {
+        startServers(2);
+        RedisShardingConfig sharding = new RedisShardingConfig();
+        sharding.setNodes(servers.stream().map(MiniRedis::getUri).toList());
+        pipeline = pipeline(RedisClient.create(), sharding, new RedisPipelineConfig());
+
+        pipeline.ping().get();
+
+        for (MiniRedis server : servers) {
+            assertThat(awaitFlushed("127.0.0.1:" + server.getPort(), 1).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void rejectsCommandsOnceStopped() throws Exception {
+        startServers(1);
+        pipeline = singleNode(new RedisPipelineConfig());
+        pipeline.stop();
+
+        CompletableFuture<Boolean> result = pipeline.submit("token-1", commands -> commands.hset("token-1", "VNPAY", RECORD));
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(servers.get(0).size()).isZero();
+    }
+
+    @Test
+    void treatsOnlyMovedAndAskRepliesAsRedirects() {
+        assertThat(RedisPipeline.isRedirect(new RedisCommandExecutionException("MOVED 3999 127.0.0.1:6381"))).isTrue();
+        assertThat(RedisPipeline.isRedirect(new RedisCommandExecutionException("ASK 3999 127.0.0.1:6381"))).isTrue();
+        assertThat(RedisPipeline.isRedirect(new RedisCommandExecutionException("ERR wrong number of arguments"))).isFalse();
+        assertThat(RedisPipeline.isRedirect(new RejectedExecutionException("MOVED"))).isFalse();
+        assertThat(RedisPipeline.isRedirect(null)).isFalse();
+    }
+
+    private void startServers(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            servers.add(new MiniRedis());
+        }
+    }
+
+    private void write(List<String> keys) {
+        CompletableFuture.allOf(keys.stream()
+                .map(key -> pipeline.submit(key, commands -> commands.hset(key, "VNPAY", RECORD)))
+                .toArray(CompletableFuture<?>[]::new)).join();
+    }
+
+    /**
+     * The batch size is recorded after the flush, so it can trail the replies.
+     */
+    private DistributionSummary awaitFlushed(String node, long commands) throws InterruptedException {
+        DistributionSummary batchSize = meterRegistry.get("payment.redis.pipeline.batch.size").tag("node", node).summary();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batchSize.totalAmount() < commands && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return batchSize;
+    }
+
+    private RedisPipeline singleNode(RedisPipelineConfig config) {
+        RedisShardingConfig sharding = new RedisShardingConfig();
+        sharding.setNodes(List.of(servers.get(0).getUri()));
+        return pipeline(RedisClient.create(), sharding, config);
+    }
+
+    private RedisPipeline pipeline(AbstractRedisClient redisClient, RedisShardingConfig sharding, RedisPipelineConfig config) {
+        client = redisClient;
+        LettuceConnectionFactory connectionFactory = mock(LettuceConnectionFactory.class);
+        when(connectionFactory.getRequiredNativeClient()).thenReturn(redisClient);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "config", new RedisResilienceConfig());
+        ReflectionTestUtils.setField(breaker, "meterRegistry", meterRegistry);
+        breaker.init();
+
+        RedisPipeline redisPipeline = new RedisPipeline();
+        ReflectionTestUtils.setField(redisPipeline, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(redisPipeline, "config", config);
+        ReflectionTestUtils.setField(redisPipeline, "shardingConfig", sharding);
+        ReflectionTestUtils.setField(redisPipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(redisPipeline, "circuitBreaker", breaker);
+        redisPipeline.start();
+        return redisPipeline;
+    }
+
+    private static String clusterNode(String id, int port, boolean myself, String slots) {
+        return id.repeat(40) + " 127.0.0.1:" + port + "@1" + port + ' ' + (myself ? "myself," : "") + "master - 0 0 1 connected "
+                + slots + '\n';
+    }
+}
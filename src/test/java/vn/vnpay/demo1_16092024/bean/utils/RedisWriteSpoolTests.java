@@ -0,0 +1,95 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.RedisResilienceConfig;
+import vn.vnpay.demo1_16092024.bean.exception.RedisUnavailableException;
+import vn.vnpay.demo1_16092024.bean.segment.MappedSegmentLog;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RedisWriteSpoolTests {
+
+    @TempDir
+    Path directory;
+
+    private RedisResilienceConfig config;
+    private RedisWriteSpool spool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        config = new RedisResilienceConfig();
+        config.setSpoolDirectory(directory.toString());
+        config.setSpoolSegmentSize(4096);
+        // far longer than the test waits, so only the append itself can trigger the fsync
+        config.setReplayInterval(Duration.ofMinutes(1));
+        spool = start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        spool.stop();
+    }
+
+    @Test
+    void completesAppendsOnlyOnceTheyAreForced() throws Exception {
+        List<CompletableFuture<Boolean>> appends = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            appends.add(spool.append("VNPAY", "token-" + i, ("record-" + i).getBytes(StandardCharsets.UTF_8), Duration.ofHours(1)));
+        }
+
+        for (CompletableFuture<Boolean> append : appends) {
+            assertThat(append.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        MappedSegmentLog log = (MappedSegmentLog) ReflectionTestUtils.getField(spool, "log");
+        assertThat(ReflectionTestUtils.getField(spool, "syncedPosition")).isEqualTo(log.writePosition());
+        assertThat(spool.hasPending()).isTrue();
+    }
+
+    @Test
+    void keepsSpooledRecordsAcrossRestarts() throws Exception {
+        spool.append("VNPAY", "token-1", "record".getBytes(StandardCharsets.UTF_8), null).get(5, TimeUnit.SECONDS);
+        long pending = spool.pendingBytes();
+        spool.stop();
+
+        spool = start();
+
+        assertThat(spool.pendingBytes()).isEqualTo(pending);
+    }
+
+    @Test
+    void reportsRecordsItCannotTake() throws Exception {
+        assertThat(spool.append("VNPAY", "t".repeat(0x10000), new byte[1], null).get(5, TimeUnit.SECONDS)).isFalse();
+
+        config.setSpoolEnabled(false);
+        RedisWriteSpool disabled = start();
+        assertThat(disabled.append("VNPAY", "token-1", new byte[1], null).get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    private RedisWriteSpool start() throws Exception {
+        // Redis stays down, so nothing is replayed
+        RedisPipeline redisPipeline = mock(RedisPipeline.class);
+        when(redisPipeline.submit(any(), any())).thenReturn(CompletableFuture.failedFuture(new RedisUnavailableException("down")));
+        RedisWriteSpool started = new RedisWriteSpool();
+        ReflectionTestUtils.setField(started, "config", config);
+        ReflectionTestUtils.setField(started, "redisPipeline", redisPipeline);
+        ReflectionTestUtils.setField(started, "meterRegistry", new SimpleMeterRegistry());
+        started.start();
+        return started;
+    }
+}
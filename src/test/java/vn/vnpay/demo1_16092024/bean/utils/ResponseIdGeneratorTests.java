@@ -0,0 +1,90 @@
+package vn.vnpay.demo1_16092024.bean.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.vnpay.demo1_16092024.bean.config.IdConfig;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseIdGeneratorTests {
+
+    private ResponseIdGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = generator(7);
+    }
+
+    @Test
+    void idsStrictlyIncreaseAndCarryTheNodeId() {
+        long previous = generator.nextLong();
+        // more than one millisecond's worth of sequence numbers
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextLong();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(id >>> ResponseIdGenerator.SEQUENCE_BITS & ResponseIdGenerator.MAX_NODE_ID).isEqualTo(7);
+            previous = id;
+        }
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndNodes() {
+        ResponseIdGenerator otherNode = generator(8);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 50_000).parallel().forEach(i -> {
+            ids.add(generator.nextId());
+            ids.add(otherNode.nextId());
+        });
+
+        assertThat(ids).hasSize(100_000).allSatisfy(id -> assertThat(id).hasSizeGreaterThanOrEqualTo(8).containsOnlyDigits());
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> generator(ResponseIdGenerator.MAX_NODE_ID + 1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void requiresANodeIdOutsideTheDevProfile() {
+        assertThatThrownBy(() -> generator(null, new MockEnvironment()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("payment.id.nodeId");
+    }
+
+    @Test
+    void derivesANodeIdUnderTheDevProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("dev");
+
+        long id = generator(null, environment).nextLong();
+
+        assertThat(id >>> ResponseIdGenerator.SEQUENCE_BITS & ResponseIdGenerator.MAX_NODE_ID)
+                .isBetween(0L, (long) ResponseIdGenerator.MAX_NODE_ID);
+    }
+
+    @Test
+    void timestampMatchesTheResponseFormat() {
+        assertThat(PaymentUtils.getCurrentTimestamp()).hasSize(14).containsOnlyDigits();
+    }
+
+    private static ResponseIdGenerator generator(Integer nodeId) {
+        return generator(nodeId, new MockEnvironment());
+    }
+
+    private static ResponseIdGenerator generator(Integer nodeId, MockEnvironment environment) {
+        IdConfig config = new IdConfig();
+        config.setNodeId(nodeId);
+        ResponseIdGenerator generator = new ResponseIdGenerator();
+        ReflectionTestUtils.setField(generator, "config", config);
+        ReflectionTestUtils.setField(generator, "environment", environment);
+        generator.init();
+        return generator;
+    }
+}